@@ -12,6 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -23,8 +24,10 @@ public class BookingDataInitializer implements CommandLineRunner {
     private final CityRepository cityRepository;
     private final VenueRepository venueRepository;
     private final ShowRepository showRepository;
-    private final SeatRepository seatRepository;
+    private final ScreenSeatRepository screenSeatRepository;
     private final MovieRepository movieRepository;
+    private final PricingRuleRepository pricingRuleRepository;
+    private final PromoCodeRepository promoCodeRepository;
 
     @Override
     @Transactional
@@ -34,6 +37,8 @@ public class BookingDataInitializer implements CommandLineRunner {
         initializeCities();
         initializeVenues();
         initializeShows();
+        initializePricingRules();
+        initializePromoCodes();
         
         log.info("Booking system data initialization completed successfully");
     }
@@ -97,6 +102,40 @@ public class BookingDataInitializer implements CommandLineRunner {
         log.info("Created {} venues", venues.size());
     }
 
+    private void initializePricingRules() {
+        if (pricingRuleRepository.count() > 0) {
+            log.info("Pricing rules already exist, skipping pricing rule initialization");
+            return;
+        }
+
+        List<PricingRule> rules = List.of(
+            // Convenience fee: 2% of the subtotal, at least Rs. 20
+            PricingRule.builder().ruleType("FEE").code("CONVENIENCE").basisPoints(200).minimumPaise(2000L).build(),
+            // GST: 18% of the subtotal
+            PricingRule.builder().ruleType("TAX").code("GST").basisPoints(1800).build()
+        );
+
+        pricingRuleRepository.saveAll(rules);
+        log.info("Created {} pricing rules", rules.size());
+    }
+
+    private void initializePromoCodes() {
+        if (promoCodeRepository.count() > 0) {
+            log.info("Promo codes already exist, skipping promo code initialization");
+            return;
+        }
+
+        List<PromoCode> promoCodes = List.of(
+            // 10% off, open to everyone
+            PromoCode.builder().code("SAVE10").basisPoints(1000).build(),
+            // Rs. 50 off a user's first booking with it
+            PromoCode.builder().code("FIRST50").amountPaise(5000L).maxPerUser(1).build()
+        );
+
+        promoCodeRepository.saveAll(promoCodes);
+        log.info("Created {} promo codes", promoCodes.size());
+    }
+
     private void initializeShows() {
         if (showRepository.count() > 0) {
             log.info("Shows already exist, skipping show initialization");
@@ -145,6 +184,8 @@ public class BookingDataInitializer implements CommandLineRunner {
     private void createShowsForMovieAndVenue(Movie movie, Venue venue, LocalDate showDate, 
                                            String screenName, List<String> showTimes, BigDecimal basePrice) {
         
+        int layoutSeats = ensureScreenLayout(venue, screenName);
+        
         for (String timeStr : showTimes) {
             LocalTime showTime = LocalTime.parse(timeStr);
             
@@ -161,54 +202,56 @@ public class BookingDataInitializer implements CommandLineRunner {
                 .showTime(showTime)
                 .screenName(screenName)
                 .price(price)
-                .totalSeats(150)
-                .availableSeats(150)
+                .totalSeats(layoutSeats)
+                .availableSeats(layoutSeats)
                 .isActive(true)
                 .build();
                 
-            Show savedShow = showRepository.save(show);
-            
-            // Create seat layout for this show
-            createSeatsForShow(savedShow);
+            // Seat state rows appear as seats get held or sold
+            showRepository.save(show);
         }
     }
 
-    private void createSeatsForShow(Show show) {
+    private int ensureScreenLayout(Venue venue, String screenName) {
+        int existing = screenSeatRepository.countLayoutSeats(venue.getId(), screenName);
+        if (existing > 0) {
+            return existing;
+        }
+        
         // Create a typical cinema layout: 10 rows (A-J) with 15 seats each
         String[] rows = {"A", "B", "C", "D", "E", "F", "G", "H", "I", "J"};
+        List<ScreenSeat> layout = new ArrayList<>();
         
         for (String row : rows) {
             for (int seatNumber = 1; seatNumber <= 15; seatNumber++) {
                 String seatType = "REGULAR";
-                BigDecimal seatPrice = show.getPrice();
+                BigDecimal priceTier = BigDecimal.ZERO;
                 
                 // Premium seats in the middle rows (D-F)
                 if (row.equals("D") || row.equals("E") || row.equals("F")) {
                     seatType = "PREMIUM";
-                    seatPrice = seatPrice.add(new BigDecimal("50"));
+                    priceTier = new BigDecimal("50");
                 }
                 
                 // VIP seats in the back row
                 if (row.equals("J")) {
                     seatType = "VIP";
-                    seatPrice = seatPrice.add(new BigDecimal("100"));
+                    priceTier = new BigDecimal("100");
                 }
                 
-                Seat seat = Seat.builder()
-                    .show(show)
+                layout.add(ScreenSeat.builder()
+                    .venue(venue)
+                    .screenName(screenName)
                     .seatRow(row)
                     .seatNumber(seatNumber)
                     .seatType(seatType)
-                    .price(seatPrice)
-                    .isAvailable(true)
-                    .isBlocked(false)
-                    .build();
-                    
-                seatRepository.save(seat);
+                    .priceTier(priceTier)
+                    .build());
             }
         }
         
-        log.debug("Created 150 seats for show: {} at {} on {}", 
-                 show.getMovie().getTitle(), show.getVenue().getName(), show.getShowDate());
+        screenSeatRepository.saveAll(layout);
+        log.debug("Created {} seat layout for {} at {}", layout.size(), screenName, venue.getName());
+        return layout.size();
     }
-}
\ No newline at end of file
+}
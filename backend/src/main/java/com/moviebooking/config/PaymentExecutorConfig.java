@@ -0,0 +1,105 @@
+package com.moviebooking.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Dedicated executor for payment gateway calls, kept apart from the servlet pool so a slow
+ * provider can only exhaust its own bounded pool (and is rejected beyond that) instead of
+ * starving browse traffic. On JDK 21+ it can run on virtual threads with the same bound.
+ * Booking a paid checkout (a transaction plus optimistic-retry backoff) runs on its own
+ * pool, so it never holds the threads that gateway calls are admitted on.
+ */
+@Slf4j
+@Configuration
+public class PaymentExecutorConfig {
+
+    @Value("${booking.payment.pool-size:32}")
+    private int poolSize;
+
+    @Value("${booking.payment.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${booking.payment.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    @Value("${booking.checkout.pool-size:16}")
+    private int checkoutPoolSize;
+
+    @Value("${booking.checkout.queue-capacity:500}")
+    private int checkoutQueueCapacity;
+
+    @Bean
+    public AsyncTaskExecutor paymentExecutor() {
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("payment-");
+            executor.setVirtualThreads(true);
+            // SimpleAsyncTaskExecutor's own concurrency limit blocks the submitter instead of rejecting
+            log.info("Payment executor on virtual threads (limit {})", poolSize + queueCapacity);
+            return new RejectingExecutor(executor, poolSize + queueCapacity);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("payment-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public AsyncTaskExecutor bookingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("checkout-");
+        executor.setCorePoolSize(checkoutPoolSize);
+        executor.setMaxPoolSize(checkoutPoolSize);
+        executor.setQueueCapacity(checkoutQueueCapacity);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs at most limit tasks at a time and rejects beyond that, like a full bounded pool
+     */
+    private static final class RejectingExecutor implements AsyncTaskExecutor {
+        private final AsyncTaskExecutor delegate;
+        private final Semaphore permits;
+
+        private RejectingExecutor(AsyncTaskExecutor delegate, int limit) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(limit);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (!permits.tryAcquire()) {
+                throw new TaskRejectedException("Payment executor is at its concurrency limit");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+    }
+}
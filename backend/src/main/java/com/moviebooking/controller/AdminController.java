@@ -1,18 +1,34 @@
 package com.moviebooking.controller;
 
+import com.moviebooking.dto.CursorPage;
+import com.moviebooking.dto.MessageResponse;
+import com.moviebooking.dto.PricingRuleRequest;
+import com.moviebooking.dto.PromoCodeRequest;
+import com.moviebooking.dto.TimeSeriesResponse;
 import com.moviebooking.dto.UserRequest;
 import com.moviebooking.dto.UserResponse;
+import com.moviebooking.entity.PricingRule;
+import com.moviebooking.entity.PromoCode;
 import com.moviebooking.entity.Role;
 import com.moviebooking.entity.User;
 import com.moviebooking.repository.RoleRepository;
 import com.moviebooking.repository.UserRepository;
-import com.moviebooking.repository.BookingRepository;
-import com.moviebooking.repository.MovieRepository;
+import com.moviebooking.repository.PricingRuleRepository;
+import com.moviebooking.repository.PromoCodeRepository;
 import com.moviebooking.security.UserPrincipal;
+import com.moviebooking.service.BookingTimeSeries;
+import com.moviebooking.service.CachedCounts;
+import com.moviebooking.service.PageCursor;
+import com.moviebooking.service.PricingEngine;
+import com.moviebooking.service.PromoCodeService;
+import com.moviebooking.service.PriceTable;
+import com.moviebooking.service.SeatInventory;
+import com.moviebooking.service.StatisticsAggregator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -22,7 +38,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
-import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -33,11 +51,19 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class AdminController {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
-    private final BookingRepository bookingRepository;
-    private final MovieRepository movieRepository;
+    private final PricingRuleRepository pricingRuleRepository;
+    private final PromoCodeRepository promoCodeRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PricingEngine pricingEngine;
+    private final PromoCodeService promoCodeService;
+    private final CachedCounts cachedCounts;
+    private final StatisticsAggregator statisticsAggregator;
+    private final BookingTimeSeries bookingTimeSeries;
+    private final SeatInventory seatInventory;
 
     /**
      * Get all users with pagination - Admin only
@@ -70,6 +96,48 @@ public class AdminController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Page through users by id with a continuation cursor - Admin only
+     */
+    @GetMapping("/users/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> scrollUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        
+        try {
+            boolean descending = sortDir.equalsIgnoreCase("desc");
+            long afterId = descending ? Long.MAX_VALUE : 0L;
+            if (cursor != null && !cursor.isEmpty()) {
+                afterId = Long.parseLong(PageCursor.decode(cursor, 1)[0]);
+            }
+            int pageSize = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+            PageRequest pageRequest = PageRequest.of(0, pageSize);
+            Slice<User> users = descending
+                ? userRepository.findByIdLessThanOrderByIdDesc(afterId, pageRequest)
+                : userRepository.findByIdGreaterThanOrderByIdAsc(afterId, pageRequest);
+            
+            List<UserResponse> content = users.getContent().stream()
+                .map(this::convertToUserResponse)
+                .collect(Collectors.toList());
+            String nextCursor = users.hasNext()
+                ? PageCursor.encode(content.get(content.size() - 1).getId().toString())
+                : null;
+            
+            return ResponseEntity.ok(CursorPage.<UserResponse>builder()
+                .content(content)
+                .size(pageSize)
+                .hasNext(users.hasNext())
+                .nextCursor(nextCursor)
+                .approximateTotal(withTotal ? cachedCounts.get("users", userRepository::count) : null)
+                .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Create a new user - Admin only
      */
@@ -113,6 +181,7 @@ public class AdminController {
         user.setRoles(roles);
         
         User savedUser = userRepository.save(user);
+        statisticsAggregator.recordUserCreated();
         return ResponseEntity.ok(convertToUserResponse(savedUser));
     }
 
@@ -181,6 +250,7 @@ public class AdminController {
         }
         
         userRepository.delete(user);
+        statisticsAggregator.recordUserDeleted();
         
         Map<String, String> response = new HashMap<>();
         response.put("message", "User deleted successfully");
@@ -244,28 +314,169 @@ public class AdminController {
         return ResponseEntity.ok(roleResponses);
     }
 
+    /**
+     * Get all pricing rules - Admin only
+     */
+    @GetMapping("/pricing-rules")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<PricingRule>> getPricingRules() {
+        return ResponseEntity.ok(pricingRuleRepository.findAll(Sort.by("id")));
+    }
+
+    /**
+     * Create a pricing rule - Admin only; applies to quotes immediately
+     */
+    @PostMapping("/pricing-rules")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PricingRule> createPricingRule(@Valid @RequestBody PricingRuleRequest request) {
+        if (pricingRuleRepository.existsByRuleTypeAndCode(request.getRuleType(), request.getCode())) {
+            throw new RuntimeException("Pricing rule already exists: " + request.getRuleType() + " " + request.getCode());
+        }
+        
+        PricingRule rule = new PricingRule();
+        applyPricingRule(rule, request);
+        PricingRule savedRule = pricingRuleRepository.save(rule);
+        pricingEngine.reloadRules();
+        return ResponseEntity.ok(savedRule);
+    }
+
+    /**
+     * Update a pricing rule - Admin only; applies to quotes immediately
+     */
+    @PutMapping("/pricing-rules/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PricingRule> updatePricingRule(@PathVariable Long id,
+                                                         @Valid @RequestBody PricingRuleRequest request) {
+        PricingRule rule = pricingRuleRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Pricing rule not found with id: " + id));
+        
+        applyPricingRule(rule, request);
+        PricingRule savedRule = pricingRuleRepository.save(rule);
+        pricingEngine.reloadRules();
+        return ResponseEntity.ok(savedRule);
+    }
+
+    /**
+     * Delete a pricing rule - Admin only
+     */
+    @DeleteMapping("/pricing-rules/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, String>> deletePricingRule(@PathVariable Long id) {
+        PricingRule rule = pricingRuleRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Pricing rule not found with id: " + id));
+        
+        pricingRuleRepository.delete(rule);
+        pricingEngine.reloadRules();
+        
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Pricing rule deleted successfully");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get all promo codes - Admin only
+     */
+    @GetMapping("/promo-codes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<PromoCode>> getPromoCodes() {
+        return ResponseEntity.ok(promoCodeRepository.findAll(Sort.by("id")));
+    }
+
+    /**
+     * Create a promo code - Admin only; redeemable immediately
+     */
+    @PostMapping("/promo-codes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PromoCode> createPromoCode(@Valid @RequestBody PromoCodeRequest request) {
+        if (promoCodeRepository.existsByCode(request.getCode().trim().toUpperCase())) {
+            throw new RuntimeException("Promo code already exists: " + request.getCode());
+        }
+        
+        PromoCode promoCode = PromoCode.builder().build();
+        applyPromoCode(promoCode, request);
+        PromoCode savedPromoCode = promoCodeRepository.save(promoCode);
+        promoCodeService.reload();
+        return ResponseEntity.ok(savedPromoCode);
+    }
+
+    /**
+     * Update a promo code - Admin only; redemption counters are left untouched
+     */
+    @PutMapping("/promo-codes/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PromoCode> updatePromoCode(@PathVariable Long id,
+                                                     @Valid @RequestBody PromoCodeRequest request) {
+        PromoCode promoCode = promoCodeRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Promo code not found with id: " + id));
+        
+        if (!promoCode.getCode().equalsIgnoreCase(request.getCode().trim())) {
+            throw new RuntimeException("Promo code cannot be renamed");
+        }
+        
+        applyPromoCode(promoCode, request);
+        PromoCode savedPromoCode = promoCodeRepository.save(promoCode);
+        promoCodeService.reload();
+        return ResponseEntity.ok(savedPromoCode);
+    }
+
     /**
      * Get admin dashboard statistics - Admin only
      */
     @GetMapping("/statistics")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> getDashboardStatistics() {
-        Map<String, Object> stats = new HashMap<>();
+        // Served from in-memory counters, independent of table sizes
+        return ResponseEntity.ok(statisticsAggregator.dashboard());
+    }
+
+    /**
+     * Per-minute booking activity of the whole site, a show, a movie or a city, downsampled
+     * into steps - Admin only. Served from memory.
+     */
+    @GetMapping("/analytics/timeseries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getTimeSeries(
+            @RequestParam(defaultValue = BookingTimeSeries.ALL) String dimension,
+            @RequestParam(required = false) String key,
+            @RequestParam(defaultValue = "60") int minutes,
+            @RequestParam(defaultValue = "1") int step) {
         
-        // Get actual counts from database
-        long totalUsers = userRepository.count();
-        long totalMovies = movieRepository.count();
-        long totalBookings = bookingRepository.count();
+        if (!BookingTimeSeries.ALL.equals(dimension) && (key == null || key.isBlank())) {
+            return ResponseEntity.badRequest().body(new MessageResponse("A key is required for dimension " + dimension));
+        }
+        BookingTimeSeries.Window window = bookingTimeSeries.query(dimension, key, minutes, step);
+        if (window == null) {
+            return ResponseEntity.notFound().build();
+        }
         
-        // Calculate total revenue from bookings
-        BigDecimal totalRevenue = bookingRepository.getTotalRevenue().orElse(BigDecimal.ZERO);
+        List<TimeSeriesResponse.Point> points = new ArrayList<>(window.bookings().length);
+        for (int i = 0; i < window.bookings().length; i++) {
+            long startMillis = window.fromEpochMillis() + i * window.stepMinutes() * 60_000L;
+            points.add(TimeSeriesResponse.Point.builder()
+                .start(LocalDateTime.ofInstant(Instant.ofEpochMilli(startMillis), ZoneId.systemDefault()))
+                .bookings(window.bookings()[i])
+                .cancellations(window.cancellations()[i])
+                .seats(window.seats()[i])
+                .revenue(PriceTable.toRupees(window.revenuePaise()[i]))
+                .build());
+        }
         
-        stats.put("totalUsers", totalUsers);
-        stats.put("totalMovies", totalMovies);
-        stats.put("totalBookings", totalBookings);
-        stats.put("totalRevenue", totalRevenue);
+        Integer capacity = null;
+        if (BookingTimeSeries.SHOW.equals(dimension)) {
+            try {
+                capacity = seatInventory.forShow(Long.valueOf(key)).presentCount();
+            } catch (RuntimeException e) {
+                log.debug("No seat map for show {}", key, e);
+            }
+        }
         
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok(TimeSeriesResponse.builder()
+            .dimension(dimension)
+            .key(BookingTimeSeries.ALL.equals(dimension) ? null : key)
+            .stepMinutes(window.stepMinutes())
+            .capacity(capacity)
+            .points(points)
+            .build());
     }
 
     /**
@@ -286,4 +497,39 @@ public class AdminController {
                        "name", user.getRoles().iterator().next().getName().replace("ROLE_", "")))
             .build();
     }
+
+    /**
+     * Copy request fields onto a pricing rule, defaulting unset amounts to zero
+     */
+    private void applyPricingRule(PricingRule rule, PricingRuleRequest request) {
+        rule.setRuleType(request.getRuleType());
+        rule.setCode(request.getCode());
+        rule.setBasisPoints(request.getBasisPoints() != null ? request.getBasisPoints() : 0);
+        rule.setMinimumPaise(request.getMinimumPaise() != null ? request.getMinimumPaise() : 0L);
+        rule.setIsActive(request.getIsActive() != null ? request.getIsActive() : true);
+    }
+
+    /**
+     * Copy request fields onto a promo code; exactly one of percentage and flat amount must be set
+     */
+    private void applyPromoCode(PromoCode promoCode, PromoCodeRequest request) {
+        int basisPoints = request.getBasisPoints() != null ? request.getBasisPoints() : 0;
+        long amountPaise = request.getAmountPaise() != null ? request.getAmountPaise() : 0L;
+        if ((basisPoints > 0) == (amountPaise > 0)) {
+            throw new RuntimeException("Set either a percentage or a flat amount off");
+        }
+        if (request.getValidFrom() != null && request.getValidUntil() != null
+                && !request.getValidUntil().isAfter(request.getValidFrom())) {
+            throw new RuntimeException("Validity must end after it starts");
+        }
+        
+        promoCode.setCode(request.getCode().trim().toUpperCase());
+        promoCode.setBasisPoints(basisPoints);
+        promoCode.setAmountPaise(amountPaise);
+        promoCode.setMaxRedemptions(request.getMaxRedemptions());
+        promoCode.setMaxPerUser(request.getMaxPerUser());
+        promoCode.setValidFrom(request.getValidFrom());
+        promoCode.setValidUntil(request.getValidUntil());
+        promoCode.setIsActive(request.getIsActive() != null ? request.getIsActive() : true);
+    }
 }
\ No newline at end of file
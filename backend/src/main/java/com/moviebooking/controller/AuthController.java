@@ -10,6 +10,7 @@ import com.moviebooking.repository.RoleRepository;
 import com.moviebooking.repository.UserRepository;
 import com.moviebooking.security.JwtUtils;
 import com.moviebooking.security.UserPrincipal;
+import com.moviebooking.service.StatisticsAggregator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -36,6 +37,7 @@ public class AuthController {
     private final RoleRepository roleRepository;
     private final PasswordEncoder encoder;
     private final JwtUtils jwtUtils;
+    private final StatisticsAggregator statisticsAggregator;
 
     @PostMapping("/signin")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
@@ -78,6 +80,7 @@ public class AuthController {
 
         // Save user first
         User savedUser = userRepository.save(user);
+        statisticsAggregator.recordUserCreated();
         
         // Then add roles
         Set<String> strRoles = signUpRequest.getRole();
@@ -1,6 +1,7 @@
 package com.moviebooking.controller;
 
 import com.moviebooking.dto.BookingRequest;
+import com.moviebooking.dto.BookingResponse;
 import com.moviebooking.dto.MessageResponse;
 import com.moviebooking.entity.Booking;
 import com.moviebooking.entity.Seat;
@@ -11,22 +12,41 @@ import com.moviebooking.repository.SeatRepository;
 import com.moviebooking.repository.ShowRepository;
 import com.moviebooking.repository.UserRepository;
 import com.moviebooking.security.UserPrincipal;
+import com.moviebooking.service.BookingExportService;
+import com.moviebooking.service.BookingQueryService;
+import com.moviebooking.service.BookingReferenceGenerator;
+import com.moviebooking.service.BookingTimeSeries;
+import com.moviebooking.service.IdempotencyService;
+import com.moviebooking.service.OptimisticRetryExecutor;
+import com.moviebooking.service.PriceTable;
+import com.moviebooking.service.PricingEngine;
+import com.moviebooking.service.SeatConflictException;
+import com.moviebooking.service.SeatInventory;
+import com.moviebooking.service.SeatService;
+import com.moviebooking.service.StatisticsAggregator;
+import com.moviebooking.service.ShowService;
+import com.moviebooking.service.WaitlistService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/bookings")
@@ -34,82 +54,108 @@ import java.util.Optional;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
 public class BookingController {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+
     private final BookingRepository bookingRepository;
     private final ShowRepository showRepository;
     private final SeatRepository seatRepository;
     private final UserRepository userRepository;
+    private final SeatInventory seatInventory;
+    private final SeatService seatService;
+    private final PricingEngine pricingEngine;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final ShowService showService;
+    private final IdempotencyService idempotencyService;
+    private final BookingReferenceGenerator bookingReferenceGenerator;
+    private final BookingQueryService bookingQueryService;
+    private final StatisticsAggregator statisticsAggregator;
+    private final BookingTimeSeries bookingTimeSeries;
+    private final BookingExportService bookingExportService;
+    private final WaitlistService waitlistService;
 
     /**
      * Create a new booking
      */
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    @Transactional
-    public ResponseEntity<?> createBooking(
+    public CompletableFuture<ResponseEntity<?>> createBooking(
             @Valid @RequestBody BookingRequest bookingRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         
-        try {
-            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            Long userId = userPrincipal.getId();
-
-            // Get user, show, and validate seats
-            Optional<User> userOpt = userRepository.findById(userId);
-            Optional<Show> showOpt = showRepository.findById(bookingRequest.getShowId());
-
-            if (userOpt.isEmpty()) {
-                return ResponseEntity.badRequest().body(new MessageResponse("User not found"));
-            }
-            if (showOpt.isEmpty()) {
-                return ResponseEntity.badRequest().body(new MessageResponse("Show not found"));
-            }
-
-            User user = userOpt.get();
-            Show show = showOpt.get();
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        Long userId = userPrincipal.getId();
 
-            // Validate that all selected seats are available
-            List<Seat> selectedSeats = seatRepository.findByIdInAndIsAvailableTrue(bookingRequest.getSeatIds());
-            
-            if (selectedSeats.size() != bookingRequest.getSeatIds().size()) {
-                return ResponseEntity.badRequest().body(new MessageResponse("Some selected seats are no longer available"));
+        // A retried request with the same key gets the first attempt's outcome instead of a second booking
+        return idempotencyService.execute(idempotencyKey, userId, "booking.create", bookingRequest, () -> {
+            try {
+                // Seats get their state rows in a transaction of their own, so retries below only update
+                seatInventory.ensureSeatRows(bookingRequest.getShowId(), bookingRequest.getSeatIds());
+                return CompletableFuture.completedFuture(
+                    optimisticRetryExecutor.execute("booking.create", () -> placeBooking(bookingRequest, userId)));
+            } catch (SeatConflictException e) {
+                // The guarded sale matched fewer seats than requested and was rolled back
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new MessageResponse(e.getMessage())));
+            } catch (Exception e) {
+                return CompletableFuture.completedFuture(ResponseEntity.internalServerError()
+                    .body(new MessageResponse("Error creating booking: " + e.getMessage())));
             }
+        });
+    }
 
-            // Calculate total amount
-            BigDecimal totalAmount = selectedSeats.stream()
-                .map(Seat::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            // Create booking
-            Booking booking = Booking.builder()
-                .user(user)
-                .show(show)
-                .totalAmount(totalAmount)
-                .bookingDate(LocalDateTime.now())
-                .bookingStatus("CONFIRMED")
-                .paymentStatus("PENDING")
-                .paymentMethod(bookingRequest.getPaymentMethod())
-                .build();
-
-            // Add selected seats to booking
-            selectedSeats.forEach(booking::addSeat);
-
-            // Save booking
-            Booking savedBooking = bookingRepository.save(booking);
+    private ResponseEntity<?> placeBooking(BookingRequest bookingRequest, Long userId) {
+        // Get user, show, and validate seats
+        Optional<User> userOpt = userRepository.findById(userId);
+        Optional<Show> showOpt = showRepository.findById(bookingRequest.getShowId());
 
-            // Mark seats as booked
-            seatRepository.markSeatsAsBooked(bookingRequest.getSeatIds());
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.badRequest().body(new MessageResponse("User not found"));
+        }
+        if (showOpt.isEmpty()) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Show not found"));
+        }
 
-            // Update show's available seats count
-            int newAvailableCount = seatRepository.countAvailableSeatsByShowId(show.getId());
-            show.setAvailableSeats(newAvailableCount);
-            showRepository.save(show);
+        User user = userOpt.get();
+        Show show = showOpt.get();
+        List<Long> seatIds = bookingRequest.getSeatIds().stream().distinct().toList();
 
-            return ResponseEntity.ok(savedBooking);
+        // One guarded UPDATE sells every seat or none: they must belong to this active show,
+        // be unsold and not be under someone's hold; a short count rolls the whole booking back
+        seatService.bookFreeSeats(show.getId(), seatIds);
+        List<Seat> selectedSeats = seatRepository.findByShowIdAndSeatIds(show.getId(), seatIds);
 
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                .body(new MessageResponse("Error creating booking: " + e.getMessage()));
+        // Same compiled price table as the booking summary and checkout
+        long totalPaise = pricingEngine.forShow(show.getId(), show.getPrice()).total(seatIds, null);
+        if (totalPaise < 0) {
+            throw new SeatConflictException("Some selected seats do not belong to this show");
         }
+        BigDecimal totalAmount = PriceTable.toRupees(totalPaise);
+
+        // Create booking
+        Booking booking = Booking.builder()
+            .user(user)
+            .show(show)
+            .totalAmount(totalAmount)
+            .bookingDate(LocalDateTime.now())
+            .bookingStatus("CONFIRMED")
+            .paymentStatus("PENDING")
+            .paymentMethod(bookingRequest.getPaymentMethod())
+            .bookingReference(bookingReferenceGenerator.next())
+            .build();
+
+        // Add selected seats to booking
+        selectedSeats.forEach(booking::addSeat);
+
+        // Save booking
+        Booking savedBooking = bookingRepository.save(booking);
+        statisticsAggregator.recordBooking(show.getId(), savedBooking.getBookingDate(), totalAmount, false);
+        bookingTimeSeries.recordBooking(show.getId(), selectedSeats.size(), totalPaise);
+
+        // Update show's available seats count
+        showService.adjustAvailableSeats(show.getId(), -selectedSeats.size());
+
+        return ResponseEntity.ok(savedBooking);
     }
 
     /**
@@ -117,7 +163,7 @@ public class BookingController {
      */
     @GetMapping("/my-bookings")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<Page<Booking>> getUserBookings(
+    public ResponseEntity<Page<BookingResponse>> getUserBookings(
             Authentication authentication,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
@@ -126,24 +172,23 @@ public class BookingController {
         Long userId = userPrincipal.getId();
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Booking> bookings = bookingRepository.findByUserIdOrderByBookingDateDesc(userId, pageable);
-        
-        return ResponseEntity.ok(bookings);
+        return ResponseEntity.ok(bookingQueryService.findUserBookings(userId, pageable));
     }
 
     /**
-     * Get booking by reference number
+     * Get booking by reference number; users only see their own bookings, someone else's is reported as not found
      */
     @GetMapping("/reference/{reference}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<Booking> getBookingByReference(@PathVariable String reference) {
-        Optional<Booking> booking = bookingRepository.findByBookingReference(reference);
-        
-        if (booking.isPresent()) {
-            return ResponseEntity.ok(booking.get());
-        }
-        
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<BookingResponse> getBookingByReference(
+            @PathVariable String reference,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        boolean isAdmin = userPrincipal.getAuthorities().stream()
+            .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
+        return bookingQueryService.findByReference(reference, isAdmin ? null : userPrincipal.getId())
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
@@ -151,7 +196,6 @@ public class BookingController {
      */
     @PutMapping("/{bookingId}/cancel")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    @Transactional
     public ResponseEntity<?> cancelBooking(
             @PathVariable Long bookingId,
             Authentication authentication) {
@@ -160,50 +204,61 @@ public class BookingController {
             UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
             Long userId = userPrincipal.getId();
 
-            Optional<Booking> bookingOpt = bookingRepository.findById(bookingId);
-            
-            if (bookingOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
+            return optimisticRetryExecutor.execute("booking.cancel", () -> cancelBookingFor(bookingId, userPrincipal, userId));
 
-            Booking booking = bookingOpt.get();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                .body(new MessageResponse("Error cancelling booking: " + e.getMessage()));
+        }
+    }
 
-            // Check if user owns this booking (unless admin)
-            boolean isAdmin = userPrincipal.getAuthorities().stream()
-                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
-            
-            if (!isAdmin && !booking.getUser().getId().equals(userId)) {
-                return ResponseEntity.status(403).body(new MessageResponse("Access denied"));
-            }
+    private ResponseEntity<?> cancelBookingFor(Long bookingId, UserPrincipal userPrincipal, Long userId) {
+        // Locked so the show-cancellation job cannot cancel the same booking underneath us
+        Optional<Booking> bookingOpt = bookingRepository.findByIdForUpdate(bookingId);
+        
+        if (bookingOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
 
-            // Check if booking can be cancelled (not already cancelled)
-            if ("CANCELLED".equals(booking.getBookingStatus())) {
-                return ResponseEntity.badRequest().body(new MessageResponse("Booking is already cancelled"));
-            }
+        Booking booking = bookingOpt.get();
 
-            // Update booking status
-            booking.setBookingStatus("CANCELLED");
-            bookingRepository.save(booking);
+        // Check if user owns this booking (unless admin)
+        boolean isAdmin = userPrincipal.getAuthorities().stream()
+            .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
+        
+        if (!isAdmin && !booking.getUser().getId().equals(userId)) {
+            return ResponseEntity.status(403).body(new MessageResponse("Access denied"));
+        }
 
-            // Free up the seats
-            List<Long> seatIds = booking.getSeats().stream()
-                .map(Seat::getId)
-                .toList();
-            
-            seatRepository.markSeatsAsAvailable(seatIds);
+        // Check if booking can be cancelled (not already cancelled)
+        if ("CANCELLED".equals(booking.getBookingStatus())) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Booking is already cancelled"));
+        }
 
-            // Update show's available seats count
-            Show show = booking.getShow();
-            int newAvailableCount = seatRepository.countAvailableSeatsByShowId(show.getId());
-            show.setAvailableSeats(newAvailableCount);
-            showRepository.save(show);
+        // Update booking status; only the caller that flips it releases seats and reverses revenue
+        boolean earned = countsAsRevenue(booking);
+        if (bookingRepository.cancelBooking(bookingId) == 0) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Booking is already cancelled"));
+        }
+        if (earned) {
+            statisticsAggregator.reverseRevenue(booking.getShow().getId(), booking.getBookingDate(), booking.getTotalAmount());
+        }
 
-            return ResponseEntity.ok(new MessageResponse("Booking cancelled successfully"));
+        // Free up the seats
+        Show show = booking.getShow();
+        List<Long> seatIds = bookingRepository.findSeatIdsByBookingIds(List.of(bookingId));
+        
+        int released = seatIds.isEmpty() ? 0 : seatRepository.releaseSoldSeats(seatIds, show.getId());
 
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                .body(new MessageResponse("Error cancelling booking: " + e.getMessage()));
+        // Update show's available seats count
+        seatInventory.markAvailable(show.getId(), seatIds);
+        if (released > 0) {
+            showService.adjustAvailableSeats(show.getId(), released);
         }
+        bookingTimeSeries.recordCancellation(show.getId(), seatIds.size(), PriceTable.toPaise(booking.getTotalAmount()));
+        waitlistService.seatsFreed(show.getId());
+
+        return ResponseEntity.ok(new MessageResponse("Booking cancelled successfully"));
     }
 
     /**
@@ -211,21 +266,58 @@ public class BookingController {
      */
     @GetMapping("/admin/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Page<Booking>> getAllBookings(
+    public ResponseEntity<Page<BookingResponse>> getAllBookings(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String status) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Booking> bookings;
+        return ResponseEntity.ok(bookingQueryService.findBookings(status, pageable));
+    }
+
+    /**
+     * Admin: Page through all bookings with a continuation cursor instead of a page number
+     */
+    @GetMapping("/admin/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> scrollAllBookings(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
         
-        if (status != null && !status.isEmpty()) {
-            bookings = bookingRepository.findByBookingStatusOrderByBookingDateDesc(status, pageable);
+        try {
+            int pageSize = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+            return ResponseEntity.ok(bookingQueryService.scrollBookings(status, cursor, pageSize, withTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Admin: Download all bookings as gzipped CSV or NDJSON, streamed as they are read
+     */
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportBookings(
+            @RequestParam(defaultValue = BookingExportService.CSV) String format,
+            @RequestParam(required = false) String status,
+            HttpServletRequest request) {
+        
+        MediaType contentType;
+        if (BookingExportService.CSV.equals(format)) {
+            contentType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else if (BookingExportService.NDJSON.equals(format)) {
+            contentType = MediaType.APPLICATION_NDJSON;
         } else {
-            bookings = bookingRepository.findAll(pageable);
+            return ResponseEntity.badRequest().body(new MessageResponse("Unsupported export format: " + format));
         }
         
-        return ResponseEntity.ok(bookings);
+        return ResponseEntity.ok()
+            .contentType(contentType)
+            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"bookings." + format + "\"")
+            .body(bookingExportService.export(format, status, request));
     }
 
     /**
@@ -260,12 +352,21 @@ public class BookingController {
                 return ResponseEntity.status(403).body(new MessageResponse("Access denied"));
             }
 
+            boolean earned = countsAsRevenue(booking);
             booking.setPaymentStatus(paymentStatus);
             if (transactionId != null) {
                 booking.setTransactionId(transactionId);
             }
             
             bookingRepository.save(booking);
+            if (earned != countsAsRevenue(booking)) {
+                Long showId = booking.getShow().getId();
+                if (earned) {
+                    statisticsAggregator.reverseRevenue(showId, booking.getBookingDate(), booking.getTotalAmount());
+                } else {
+                    statisticsAggregator.recordRevenue(showId, booking.getBookingDate(), booking.getTotalAmount());
+                }
+            }
 
             return ResponseEntity.ok(new MessageResponse("Payment status updated successfully"));
 
@@ -274,4 +375,11 @@ public class BookingController {
                 .body(new MessageResponse("Error updating payment status: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Whether a booking is part of the dashboard revenue
+     */
+    private boolean countsAsRevenue(Booking booking) {
+        return "CONFIRMED".equals(booking.getBookingStatus()) && "COMPLETED".equals(booking.getPaymentStatus());
+    }
+}
@@ -2,18 +2,23 @@ package com.moviebooking.controller;
 
 import com.moviebooking.dto.*;
 import com.moviebooking.entity.Show;
-import com.moviebooking.entity.Seat;
+import com.moviebooking.security.UserPrincipal;
+import com.moviebooking.service.SeatHold;
+import com.moviebooking.service.SeatInventory;
 import com.moviebooking.service.ShowService;
 import com.moviebooking.service.SeatService;
+import com.moviebooking.service.WaitlistService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -24,6 +29,8 @@ public class BookingFlowController {
 
     private final ShowService showService;
     private final SeatService seatService;
+    private final SeatInventory seatInventory;
+    private final WaitlistService waitlistService;
 
     /**
      * Get shows for a specific movie
@@ -47,57 +54,122 @@ public class BookingFlowController {
      */
     @GetMapping("/shows/{showId}/seats")
     public ResponseEntity<List<SeatDTO>> getAvailableSeats(@PathVariable Long showId) {
-        List<Seat> seats = seatService.getSeatsForShow(showId);
-        List<SeatDTO> seatDTOs = seats.stream()
-                .map(this::convertToSeatDTO)
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(seatDTOs);
+        // Whole layout with its state, priced from the show in the same projection query
+        return ResponseEntity.ok(seatInventory.describeAll(showId));
     }
 
     /**
-     * Temporarily reserve seats for booking
+     * Temporarily reserve seats for booking; returns a hold token used by the later steps
      */
     @PostMapping("/seats/reserve")
-    public ResponseEntity<MessageResponse> reserveSeats(
-            @Valid @RequestBody SeatReservationRequest request) {
+    public ResponseEntity<?> reserveSeats(
+            @Valid @RequestBody SeatReservationRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
         
-        boolean reserved = seatService.reserveSeats(request.getShowId(), request.getSeatIds(), 
-                                                   request.getReservationTimeMinutes());
+        Optional<SeatHold> hold = seatService.reserveSeats(request.getShowId(), request.getSeatIds(), 
+                                                          request.getReservationTimeMinutes(), userIdOf(currentUser));
         
-        if (reserved) {
-            return ResponseEntity.ok(new MessageResponse("Seats reserved successfully"));
+        if (hold.isPresent()) {
+            return ResponseEntity.ok(toHoldResponse(hold.get(), "Seats reserved successfully"));
         } else {
             return ResponseEntity.badRequest()
                     .body(new MessageResponse("Some seats are no longer available"));
         }
     }
 
+    /**
+     * Automatically pick and hold the best available block of adjacent seats
+     */
+    @PostMapping("/shows/{showId}/seats/allocate")
+    public ResponseEntity<?> allocateSeats(
+            @PathVariable Long showId,
+            @Valid @RequestBody SeatAllocationRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        
+        Optional<SeatHold> hold = seatService.allocateSeats(showId, request.getCount(), request.getSeatType(),
+                                                           request.getReservationTimeMinutes(), userIdOf(currentUser));
+        
+        if (hold.isPresent()) {
+            return ResponseEntity.ok(toHoldResponse(hold.get(), "Seats allocated successfully"));
+        } else {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("No block of " + request.getCount() + " adjacent seats is available"));
+        }
+    }
+
+    /**
+     * Extend a seat hold
+     */
+    @PostMapping("/holds/{holdId}/extend")
+    public ResponseEntity<?> extendHold(
+            @PathVariable String holdId,
+            @RequestParam(defaultValue = "5") Integer minutes,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        
+        try {
+            SeatHold hold = seatService.extendHold(holdId, minutes, userIdOf(currentUser));
+            return ResponseEntity.ok(toHoldResponse(hold, "Seat hold extended"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Release reserved seats
      */
     @PostMapping("/seats/release")
     public ResponseEntity<MessageResponse> releaseSeats(
-            @RequestParam Long showId,
-            @RequestParam List<Long> seatIds) {
+            @RequestParam String holdId,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
         
-        seatService.releaseSeats(showId, seatIds);
+        try {
+            seatService.releaseHold(holdId, userIdOf(currentUser));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+        waitlistService.holdReleased(holdId);
         return ResponseEntity.ok(new MessageResponse("Seats released successfully"));
     }
 
     /**
-     * Get booking summary before payment
+     * Get booking summary before payment, by hold token or by explicit show and seats
      */
     @PostMapping("/summary")
     public ResponseEntity<BookingSummaryDTO> getBookingSummary(
-            @RequestParam Long showId,
-            @RequestParam List<Long> seatIds,
-            @RequestParam(required = false) String promoCode) {
+            @RequestParam(required = false) String holdId,
+            @RequestParam(required = false) Long showId,
+            @RequestParam(required = false) List<Long> seatIds,
+            @RequestParam(required = false) String promoCode,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
         
-        BookingSummaryDTO summary = showService.calculateBookingSummary(showId, seatIds, promoCode);
+        BookingSummaryDTO summary;
+        if (holdId != null) {
+            summary = showService.calculateBookingSummary(seatService.getHold(holdId, userIdOf(currentUser)), promoCode);
+        } else if (showId != null && seatIds != null && !seatIds.isEmpty()) {
+            summary = showService.calculateBookingSummary(showId, seatIds, promoCode);
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
         return ResponseEntity.ok(summary);
     }
 
+    /**
+     * Holds taken while signed in belong to that user; anonymous holds are authorised by their token alone
+     */
+    private static Long userIdOf(UserPrincipal currentUser) {
+        return currentUser != null ? currentUser.getId() : null;
+    }
+
+    private SeatHoldResponse toHoldResponse(SeatHold hold, String message) {
+        return SeatHoldResponse.builder()
+                .holdId(hold.holdId())
+                .showId(hold.showId())
+                .seatIds(hold.seatIds())
+                .expiresAt(hold.expiresAt())
+                .message(message)
+                .build();
+    }
+
     private ShowDTO convertToShowDTO(Show show) {
         return ShowDTO.builder()
                 .id(show.getId())
@@ -143,17 +215,4 @@ public class BookingFlowController {
                 .capacity(venue.getTotalSeats())
                 .build();
     }
-
-    private SeatDTO convertToSeatDTO(Seat seat) {
-        return SeatDTO.builder()
-                .id(seat.getId())
-                .seatRow(seat.getSeatRow())
-                .seatNumber(seat.getSeatNumber())
-                .seatType(seat.getSeatType())
-                .price(seat.getPrice())
-                .isAvailable(seat.getIsAvailable())
-                .isBlocked(seat.getIsBlocked())
-                .displayName(seat.getSeatRow() + seat.getSeatNumber())
-                .build();
-    }
 }
\ No newline at end of file
@@ -2,55 +2,156 @@ package com.moviebooking.controller;
 
 import com.moviebooking.dto.*;
 import com.moviebooking.service.BookingService;
+import com.moviebooking.service.IdempotencyService;
+import com.moviebooking.service.OptimisticRetryExecutor;
 import com.moviebooking.service.PaymentService;
+import com.moviebooking.service.SeatService;
+import com.moviebooking.service.WaitlistService;
 import com.moviebooking.security.UserPrincipal;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/payment")
-@RequiredArgsConstructor
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
 public class PaymentController {
 
     private final PaymentService paymentService;
     private final BookingService bookingService;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final SeatService seatService;
+    private final IdempotencyService idempotencyService;
+    private final WaitlistService waitlistService;
+    private final AsyncTaskExecutor bookingExecutor;
+
+    public PaymentController(PaymentService paymentService,
+                             BookingService bookingService,
+                             OptimisticRetryExecutor optimisticRetryExecutor,
+                             SeatService seatService,
+                             IdempotencyService idempotencyService,
+                             WaitlistService waitlistService,
+                             @Qualifier("bookingExecutor") AsyncTaskExecutor bookingExecutor) {
+        this.paymentService = paymentService;
+        this.bookingService = bookingService;
+        this.optimisticRetryExecutor = optimisticRetryExecutor;
+        this.seatService = seatService;
+        this.idempotencyService = idempotencyService;
+        this.waitlistService = waitlistService;
+        this.bookingExecutor = bookingExecutor;
+    }
 
     /**
-     * Create a booking with payment
+     * Create a booking with payment.
+     * Completes asynchronously: the servlet thread is released while the payment provider works.
      */
     @PostMapping("/book")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<?> createBookingWithPayment(
+    public CompletableFuture<ResponseEntity<?>> createBookingWithPayment(
             @Valid @RequestBody BookingCreateRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        Long userId = userPrincipal.getId();
+        
+        // A retried request with the same key gets the first attempt's outcome instead of a second charge
+        return idempotencyService.execute(idempotencyKey, userId, "payment.book", request,
+            () -> payAndBook(request, userId));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> payAndBook(BookingCreateRequest request, Long userId) {
+        // Nothing is charged unless the hold checks out and the amount matches the server's price
+        BigDecimal total;
         try {
-            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            
-            // Process payment first
-            PaymentResponse paymentResponse = paymentService.processPayment(request.getPaymentDetails());
-            
-            if ("SUCCESS".equals(paymentResponse.getPaymentStatus())) {
-                // Create booking if payment successful
-                BookingResponse booking = bookingService.createBookingWithPayment(
-                    request, userPrincipal.getId(), paymentResponse);
-                
-                return ResponseEntity.ok(booking);
-            } else {
-                return ResponseEntity.badRequest()
-                        .body(new MessageResponse("Payment failed: " + paymentResponse.getFailureReason()));
-            }
-            
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(new MessageResponse("Booking failed: " + e.getMessage()));
+            total = bookingService.priceBooking(request, userId);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new MessageResponse("Booking failed: " + e.getMessage())));
+        }
+        if (total.compareTo(request.getPaymentDetails().getAmount()) != 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new MessageResponse("Payment amount does not match the booking total of " + total)));
+        }
+
+        // Process payment; the booking step is handed to the booking pool, off the payment threads
+        CompletableFuture<PaymentResponse> payment = paymentService.processPayment(request.getPaymentDetails());
+        return payment
+            .<ResponseEntity<?>>thenApplyAsync(paymentResponse -> {
+                if ("SUCCESS".equals(paymentResponse.getPaymentStatus())) {
+                    // Create booking if payment successful, retrying lost version races on seats/show
+                    BookingResponse booking = optimisticRetryExecutor.execute("booking.create-with-payment",
+                        () -> bookingService.createBookingWithPayment(request, userId, paymentResponse));
+                    finishHold(request.getHoldId(), userId);
+                    
+                    return ResponseEntity.ok(booking);
+                } else {
+                    return paymentFailed(paymentResponse);
+                }
+            }, bookingExecutor)
+            .exceptionally(e -> bookingFailed(payment, userId, "Booking failed: ", e));
+    }
+
+    /**
+     * Book seats for several shows with a single payment.
+     * Each item is a hold for one show; the whole cart is priced and checked before it is charged
+     * once, then booked in one transaction, so either every show is booked or none is.
+     */
+    @PostMapping("/cart")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public CompletableFuture<ResponseEntity<?>> checkoutCart(
+            @Valid @RequestBody CartCheckoutRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
+        
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        Long userId = userPrincipal.getId();
+        
+        return idempotencyService.execute(idempotencyKey, userId, "payment.cart", request,
+            () -> payAndCheckout(request, userId));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> payAndCheckout(CartCheckoutRequest request, Long userId) {
+        // Nothing is charged until every hold checks out and the amount matches the server's total
+        BigDecimal total;
+        try {
+            total = bookingService.priceCart(request, userId);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new MessageResponse("Checkout failed: " + e.getMessage())));
+        }
+        if (total.compareTo(request.getPaymentDetails().getAmount()) != 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new MessageResponse("Payment amount does not match the cart total of " + total)));
         }
+
+        CompletableFuture<PaymentResponse> payment = paymentService.processPayment(request.getPaymentDetails());
+        return payment
+            .<ResponseEntity<?>>thenApplyAsync(paymentResponse -> {
+                if ("SUCCESS".equals(paymentResponse.getPaymentStatus())) {
+                    CartCheckoutResponse checkout = optimisticRetryExecutor.execute("booking.cart",
+                        () -> bookingService.checkoutCart(request, userId, paymentResponse));
+                    for (CartItemRequest item : request.getItems()) {
+                        finishHold(item.getHoldId(), userId);
+                    }
+                    
+                    return ResponseEntity.ok(checkout);
+                } else {
+                    return paymentFailed(paymentResponse);
+                }
+            }, bookingExecutor)
+            .exceptionally(e -> bookingFailed(payment, userId, "Checkout failed: ", e));
     }
 
     /**
@@ -58,23 +159,17 @@ public class PaymentController {
      */
     @PostMapping("/{bookingId}/pay")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<?> processPaymentForBooking(
+    public CompletableFuture<ResponseEntity<?>> processPaymentForBooking(
             @PathVariable Long bookingId,
             @Valid @RequestBody PaymentRequest paymentRequest,
             Authentication authentication) {
         
-        try {
-            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            
-            PaymentResponse paymentResponse = paymentService.processPaymentForBooking(
-                bookingId, paymentRequest, userPrincipal.getId());
-            
-            return ResponseEntity.ok(paymentResponse);
-            
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(new MessageResponse("Payment failed: " + e.getMessage()));
-        }
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        
+        return paymentService.processPaymentForBooking(bookingId, paymentRequest, userPrincipal.getId())
+            .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+            .exceptionally(e -> ResponseEntity.badRequest()
+                    .body(new MessageResponse("Payment failed: " + rootMessage(e))));
     }
 
     /**
@@ -102,4 +197,42 @@ public class PaymentController {
                     .body(new MessageResponse("Invalid payment details"));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A busy or timed-out provider answers 503/504, which idempotent retries are allowed to repeat;
+     * a decline or invalid details stay a 400
+     */
+    // The booking is committed by now; a hold left behind simply expires, so this must not fail the response
+    private void finishHold(String holdId, Long userId) {
+        try {
+            seatService.completeHold(holdId, userId);
+            waitlistService.holdBooked(holdId);
+        } catch (RuntimeException e) {
+            log.warn("Could not clear booked hold {}", holdId, e);
+        }
+    }
+
+    // Booking threw (or was never started) after the charge went through: the money must go back
+    private ResponseEntity<?> bookingFailed(CompletableFuture<PaymentResponse> payment, Long userId,
+                                            String prefix, Throwable e) {
+        String reason = prefix + rootMessage(e);
+        PaymentResponse charged = payment.getNow(null);
+        if (charged != null && "SUCCESS".equals(charged.getPaymentStatus())) {
+            paymentService.refundUnbooked(charged, userId, reason);
+            reason += "; your payment will be refunded";
+        }
+        return ResponseEntity.badRequest().body(new MessageResponse(reason));
+    }
+
+    private static ResponseEntity<?> paymentFailed(PaymentResponse paymentResponse) {
+        String reason = paymentResponse.getFailureReason();
+        HttpStatus status = PaymentService.BUSY.equals(reason) ? HttpStatus.SERVICE_UNAVAILABLE
+                : PaymentService.TIMED_OUT.equals(reason) ? HttpStatus.GATEWAY_TIMEOUT
+                : HttpStatus.BAD_REQUEST;
+        return ResponseEntity.status(status).body(new MessageResponse("Payment failed: " + reason));
+    }
+
+    private static String rootMessage(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+    }
+}
@@ -2,15 +2,29 @@ package com.moviebooking.controller;
 
 import com.moviebooking.entity.Seat;
 import com.moviebooking.dto.SeatDTO;
+import com.moviebooking.dto.SeatHoldResponse;
+import com.moviebooking.dto.SeatReservationRequest;
 import com.moviebooking.repository.SeatRepository;
+import com.moviebooking.security.UserPrincipal;
+import com.moviebooking.service.SeatHold;
+import com.moviebooking.service.SeatInventory;
+import com.moviebooking.service.SeatService;
+import com.moviebooking.service.SeatStatusPublisher;
+import com.moviebooking.service.WaitlistService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/seats")
@@ -19,36 +33,58 @@ import java.util.stream.Collectors;
 public class SeatController {
 
     private final SeatRepository seatRepository;
+    private final SeatInventory seatInventory;
+    private final SeatService seatService;
+    private final WaitlistService waitlistService;
+    private final SeatStatusPublisher seatStatusPublisher;
 
     /**
-     * Get all seats for a show - essential for seat selection
+     * Get all seats for a show - essential for seat selection.
+     * The strong ETag is a stamp of the show's seat rows in the database, so it moves with changes
+     * made on any node; a poll whose If-None-Match still matches gets 304 without loading the seats.
      */
     @GetMapping("/show/{showId}")
-    public ResponseEntity<List<SeatDTO>> getSeatsByShowId(@PathVariable Long showId) {
-        try {
-            List<Seat> seats = seatRepository.findByShowIdOrderBySeatRowAscSeatNumberAsc(showId);
-            List<SeatDTO> seatDTOs = seats.stream()
-                .map(this::convertToSeatDTO)
-                .collect(Collectors.toList());
-            return ResponseEntity.ok(seatDTOs);
-        } catch (Exception e) {
-            // Log the error for debugging
-            e.printStackTrace();
-            throw e;
+    public ResponseEntity<List<SeatDTO>> getSeatsByShowId(
+            @PathVariable Long showId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = "\"" + seatInventory.seatStateTag(showId) + "\"";
+        if (matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .build();
         }
+
+        // The tag is read before the seats so a change in between can only make the body newer than its tag
+        List<SeatDTO> seatDTOs = seatInventory.describeAll(showId);
+        return ResponseEntity.ok()
+            .eTag(eTag)
+            .cacheControl(CacheControl.noCache())
+            .body(seatDTOs);
     }
 
-    private SeatDTO convertToSeatDTO(Seat seat) {
-        return SeatDTO.builder()
-            .id(seat.getId())
-            .seatRow(seat.getSeatRow())
-            .seatNumber(seat.getSeatNumber())
-            .seatType(seat.getSeatType())
-            .price(seat.getPrice())
-            .isAvailable(seat.getIsAvailable())
-            .isBlocked(seat.getIsBlocked())
-            .displayName(seat.getSeatLabel())
-            .build();
+    /**
+     * Stream seat status changes for a show as Server-Sent Events.
+     * Starts with a snapshot (or the frames missed since Last-Event-ID) followed by coalesced deltas.
+     */
+    @GetMapping(value = "/show/{showId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatStatus(
+            @PathVariable Long showId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return seatStatusPublisher.subscribe(showId, lastEventId);
+    }
+
+    private boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -71,9 +107,8 @@ public class SeatController {
     @GetMapping("/all")
     public ResponseEntity<List<Seat>> getAllSeats() {
         try {
-            List<Seat> seats = seatRepository.findAll();
-            // Return only first 10 to avoid huge response
-            return ResponseEntity.ok(seats.subList(0, Math.min(10, seats.size())));
+            // Return only first 10 to avoid huge response; show and layout are fetched for serialization
+            return ResponseEntity.ok(seatRepository.findAllWithLayout(PageRequest.of(0, 10)));
         } catch (Exception e) {
             e.printStackTrace();
             throw e;
@@ -84,8 +119,10 @@ public class SeatController {
      * Get only available seats for a show
      */
     @GetMapping("/show/{showId}/available")
-    public ResponseEntity<List<Seat>> getAvailableSeatsByShowId(@PathVariable Long showId) {
-        List<Seat> availableSeats = seatRepository.findByShowIdAndIsAvailableTrueOrderBySeatRowAscSeatNumberAsc(showId);
+    public ResponseEntity<List<SeatDTO>> getAvailableSeatsByShowId(@PathVariable Long showId) {
+        List<SeatDTO> availableSeats = seatInventory.describeAll(showId).stream()
+            .filter(seat -> Boolean.TRUE.equals(seat.getIsAvailable()))
+            .toList();
         return ResponseEntity.ok(availableSeats);
     }
 
@@ -93,10 +130,12 @@ public class SeatController {
      * Get seats by row for a specific show
      */
     @GetMapping("/show/{showId}/row/{row}")
-    public ResponseEntity<List<Seat>> getSeatsByShowAndRow(
+    public ResponseEntity<List<SeatDTO>> getSeatsByShowAndRow(
             @PathVariable Long showId, 
             @PathVariable String row) {
-        List<Seat> seats = seatRepository.findByShowIdAndSeatRow(showId, row);
+        List<SeatDTO> seats = seatInventory.describeAll(showId).stream()
+            .filter(seat -> row.equals(seat.getSeatRow()))
+            .toList();
         return ResponseEntity.ok(seats);
     }
 
@@ -106,8 +145,8 @@ public class SeatController {
     @GetMapping("/show/{showId}/availability")
     public ResponseEntity<Map<String, Integer>> getSeatAvailability(@PathVariable Long showId) {
         int totalSeats = seatRepository.countTotalSeatsByShowId(showId);
-        int availableSeats = seatRepository.countAvailableSeatsByShowId(showId);
-        int bookedSeats = totalSeats - availableSeats;
+        int bookedSeats = seatRepository.countSoldSeatsByShowId(showId);
+        int availableSeats = totalSeats - bookedSeats;
         
         Map<String, Integer> availability = Map.of(
             "totalSeats", totalSeats,
@@ -123,56 +162,73 @@ public class SeatController {
      * This prevents other users from selecting the same seats
      */
     @PostMapping("/block")
-    @Transactional
-    public ResponseEntity<String> blockSeats(@RequestBody Map<String, List<Long>> request) {
-        List<Long> seatIds = request.get("seatIds");
+    public ResponseEntity<?> blockSeats(
+            @RequestBody SeatReservationRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        List<Long> seatIds = request.getSeatIds();
+        Long showId = request.getShowId();
         
         if (seatIds == null || seatIds.isEmpty()) {
             return ResponseEntity.badRequest().body("Seat IDs are required");
         }
+        if (showId == null) {
+            return ResponseEntity.badRequest().body("Show ID is required");
+        }
 
-        // Verify all seats are available before blocking
-        List<Seat> seatsToBlock = seatRepository.findByIdInAndIsAvailableTrue(seatIds);
-        
-        if (seatsToBlock.size() != seatIds.size()) {
+        // Verify and block in one guarded statement (5 minutes typically); the token is needed to unblock
+        Optional<SeatHold> hold = seatService.reserveSeats(showId, seatIds, 5,
+                currentUser != null ? currentUser.getId() : null);
+        if (hold.isEmpty()) {
             return ResponseEntity.badRequest().body("Some seats are no longer available");
         }
-
-        // Block the seats temporarily (5 minutes typically)
-        seatRepository.updateSeatBlockStatus(seatIds, true);
         
-        return ResponseEntity.ok("Seats blocked successfully for 5 minutes");
+        return ResponseEntity.ok(SeatHoldResponse.builder()
+                .holdId(hold.get().holdId())
+                .showId(showId)
+                .seatIds(hold.get().seatIds())
+                .expiresAt(hold.get().expiresAt())
+                .message("Seats blocked successfully for 5 minutes")
+                .build());
     }
 
     /**
-     * Unblock seats (cancel seat selection)
+     * Unblock seats (cancel seat selection); only the holder of the block's token, and its owner, may do so
      */
     @PostMapping("/unblock")
-    @Transactional
-    public ResponseEntity<String> unblockSeats(@RequestBody Map<String, List<Long>> request) {
-        List<Long> seatIds = request.get("seatIds");
+    public ResponseEntity<String> unblockSeats(
+            @RequestBody Map<String, String> request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        String holdId = request.get("holdId");
         
-        if (seatIds == null || seatIds.isEmpty()) {
-            return ResponseEntity.badRequest().body("Seat IDs are required");
+        if (holdId == null || holdId.isBlank()) {
+            return ResponseEntity.badRequest().body("Hold ID is required");
         }
 
-        seatRepository.updateSeatBlockStatus(seatIds, false);
+        try {
+            seatService.releaseHold(holdId, currentUser != null ? currentUser.getId() : null);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        waitlistService.holdReleased(holdId);
         
         return ResponseEntity.ok("Seats unblocked successfully");
     }
 
     /**
-     * Get seat details by IDs - for booking confirmation
+     * Get seat details by IDs - for booking confirmation; seat IDs are scoped to the show
      */
     @PostMapping("/details")
-    public ResponseEntity<List<Seat>> getSeatDetails(@RequestBody Map<String, List<Long>> request) {
-        List<Long> seatIds = request.get("seatIds");
+    public ResponseEntity<List<SeatDTO>> getSeatDetails(@RequestBody SeatReservationRequest request) {
+        List<Long> seatIds = request.getSeatIds();
         
-        if (seatIds == null || seatIds.isEmpty()) {
+        if (seatIds == null || seatIds.isEmpty() || request.getShowId() == null) {
             return ResponseEntity.badRequest().body(null);
         }
 
-        List<Seat> seats = seatRepository.findAllById(seatIds);
+        List<SeatDTO> seats = seatInventory.describe(request.getShowId(), seatIds, null);
+        if (seats == null) {
+            return ResponseEntity.badRequest().body(null);
+        }
         return ResponseEntity.ok(seats);
     }
 }
\ No newline at end of file
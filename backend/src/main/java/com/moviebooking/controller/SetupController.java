@@ -4,6 +4,7 @@ import com.moviebooking.entity.Role;
 import com.moviebooking.entity.User;
 import com.moviebooking.repository.RoleRepository;
 import com.moviebooking.repository.UserRepository;
+import com.moviebooking.service.StatisticsAggregator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -22,6 +23,7 @@ public class SetupController {
     private final RoleRepository roleRepository;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final StatisticsAggregator statisticsAggregator;
 
     @PostMapping("/init")
     public ResponseEntity<?> initializeData() {
@@ -116,6 +118,7 @@ public class SetupController {
             user.setRoles(roles);
             
             userRepository.save(user);
+            statisticsAggregator.recordUserCreated();
         }
     }
 
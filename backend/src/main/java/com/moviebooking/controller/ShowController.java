@@ -1,7 +1,14 @@
 package com.moviebooking.controller;
 
 import com.moviebooking.dto.MessageResponse;
+import com.moviebooking.dto.ShowCancellationRequest;
+import com.moviebooking.dto.ShowScheduleRequest;
+import com.moviebooking.dto.ShowScheduleResponse;
 import com.moviebooking.entity.Show;
+import com.moviebooking.entity.ShowCancellation;
+import com.moviebooking.security.UserPrincipal;
+import com.moviebooking.service.ShowCancellationService;
+import com.moviebooking.service.ShowScheduleService;
 import com.moviebooking.service.ShowService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -9,6 +16,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
@@ -24,6 +32,8 @@ import java.util.Optional;
 public class ShowController {
 
     private final ShowService showService;
+    private final ShowScheduleService showScheduleService;
+    private final ShowCancellationService showCancellationService;
 
     /**
      * Get all active shows with pagination
@@ -114,6 +124,20 @@ public class ShowController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdShow);
     }
 
+    /**
+     * Schedule shows for a date range across screens and show times in bulk - Admin only
+     */
+    @PostMapping("/schedule")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> scheduleShows(@Valid @RequestBody ShowScheduleRequest request) {
+        try {
+            ShowScheduleResponse response = showScheduleService.schedule(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Update an existing show - Admin only
      */
@@ -124,6 +148,35 @@ public class ShowController {
         return ResponseEntity.ok(updatedShow);
     }
 
+    /**
+     * Cancel a show: stops sales now, then cancels bookings and queues refunds in the background - Admin only
+     */
+    @PostMapping("/{id}/cancel")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> cancelShow(@PathVariable Long id,
+                                        @Valid @RequestBody(required = false) ShowCancellationRequest request,
+                                        Authentication authentication) {
+        try {
+            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+            ShowCancellation cancellation = showCancellationService.cancelShow(id,
+                    request != null ? request.getReason() : null, userPrincipal.getId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(cancellation);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Progress of a show cancellation - Admin only
+     */
+    @GetMapping("/{id}/cancellation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ShowCancellation> getShowCancellation(@PathVariable Long id) {
+        return showCancellationService.getCancellation(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Delete a show - Admin only
      */
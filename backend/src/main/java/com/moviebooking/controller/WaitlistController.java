@@ -0,0 +1,75 @@
+package com.moviebooking.controller;
+
+import com.moviebooking.dto.MessageResponse;
+import com.moviebooking.dto.WaitlistEntryResponse;
+import com.moviebooking.dto.WaitlistRequest;
+import com.moviebooking.entity.WaitlistEntry;
+import com.moviebooking.security.UserPrincipal;
+import com.moviebooking.service.WaitlistService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.util.List;
+
+@RestController
+@RequestMapping("/waitlist")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+
+    /**
+     * Join the waitlist of a sold-out show. When seats are freed they are held for the entry;
+     * the offer (hold token and seats) shows up in /waitlist/my and is booked like any other hold.
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> joinWaitlist(
+            @Valid @RequestBody WaitlistRequest request,
+            Authentication authentication) {
+
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        try {
+            WaitlistEntry entry = waitlistService.join(request.getShowId(), userPrincipal.getId(),
+                    request.getSeatCount(), request.getSeatType());
+            return ResponseEntity.ok(new MessageResponse("OFFERED".equals(entry.getStatus())
+                    ? "Seats are available and have been held for you"
+                    : "Added to the waitlist"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Current user's waitlist entries with queue positions and outstanding offers
+     */
+    @GetMapping("/my")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<List<WaitlistEntryResponse>> getMyWaitlist(Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return ResponseEntity.ok(waitlistService.findForUser(userPrincipal.getId()));
+    }
+
+    /**
+     * Leave a waitlist, declining any outstanding offer
+     */
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<MessageResponse> leaveWaitlist(
+            @PathVariable Long id,
+            Authentication authentication) {
+
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        try {
+            waitlistService.leave(id, userPrincipal.getId());
+            return ResponseEntity.ok(new MessageResponse("Left the waitlist"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+}
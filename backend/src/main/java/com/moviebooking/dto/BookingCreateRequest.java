@@ -1,30 +1,25 @@
 package com.moviebooking.dto;
 
-import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
-import java.util.List;
-
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookingCreateRequest {
     
-    @NotNull(message = "Show ID is required")
-    private Long showId;
-    
-    @NotEmpty(message = "At least one seat must be selected")
-    private List<Long> seatIds;
+    @NotBlank(message = "A hold ID is required; reserve the seats first")
+    private String holdId; // Token from /booking/seats/reserve, issued to the booking user
     
     @NotNull(message = "Payment details are required")
     private PaymentRequest paymentDetails;
     
     private String specialRequests;
     private String promoCode;
+    private String quoteToken; // From /booking/summary; lets checkout charge the quoted total as-is
 }
\ No newline at end of file
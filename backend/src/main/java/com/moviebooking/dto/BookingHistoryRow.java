@@ -0,0 +1,37 @@
+package com.moviebooking.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Flat JPQL constructor projection of a booking with its show, movie and venue
+ */
+public record BookingHistoryRow(
+        Long bookingId,
+        String bookingReference,
+        BigDecimal totalAmount,
+        String bookingStatus,
+        String paymentStatus,
+        LocalDateTime bookingDate,
+        String transactionId,
+        String paymentMethod,
+        Long showId,
+        LocalDate showDate,
+        LocalTime showTime,
+        String screenName,
+        BigDecimal showPrice,
+        Long movieId,
+        String movieTitle,
+        String movieGenre,
+        String movieLanguage,
+        Integer movieDuration,
+        String movieRating,
+        String moviePosterUrl,
+        Long venueId,
+        String venueName,
+        String venueAddress,
+        String cityName,
+        String cityState) {
+}
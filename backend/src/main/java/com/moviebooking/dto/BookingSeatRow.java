@@ -0,0 +1,15 @@
+package com.moviebooking.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * JPQL constructor projection of one seat of a booking
+ */
+public record BookingSeatRow(
+        Long bookingId,
+        Long seatId,
+        String seatRow,
+        Integer seatNumber,
+        String seatType,
+        BigDecimal price) {
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -22,4 +23,6 @@ public class BookingSummaryDTO {
     private BigDecimal totalAmount;
     private String promoCode;
     private Integer totalTickets;
+    private String quoteToken; // Signed total; pass to /payment/book to skip repricing
+    private LocalDateTime quoteExpiresAt;
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.moviebooking.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartCheckoutRequest {
+    
+    @NotEmpty(message = "Cart is empty")
+    @Size(max = 10, message = "A cart can hold at most 10 shows")
+    private List<@Valid CartItemRequest> items; // One per show
+    
+    @NotNull(message = "Payment details are required")
+    private PaymentRequest paymentDetails; // One payment covering every item
+    
+    private String specialRequests;
+}
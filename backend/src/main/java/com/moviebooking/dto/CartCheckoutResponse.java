@@ -0,0 +1,19 @@
+package com.moviebooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartCheckoutResponse {
+    private List<BookingResponse> bookings; // One per show, ordered by show ID
+    private BigDecimal totalAmount;
+    private PaymentResponse paymentDetails;
+}
@@ -0,0 +1,20 @@
+package com.moviebooking.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemRequest {
+    
+    @NotBlank(message = "Hold ID is required")
+    private String holdId; // Token from /booking/seats/reserve; carries the show and seats
+    
+    private String promoCode;
+    private String quoteToken; // From /booking/summary for this item's hold
+}
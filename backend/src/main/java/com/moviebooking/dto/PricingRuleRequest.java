@@ -0,0 +1,33 @@
+package com.moviebooking.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PricingRuleRequest {
+
+    @NotBlank(message = "Rule type is required")
+    @Pattern(regexp = "FEE|TAX", message = "Rule type must be FEE or TAX")
+    private String ruleType;
+
+    @NotBlank(message = "Code is required")
+    @Size(max = 50, message = "Code must not exceed 50 characters")
+    private String code;
+
+    @Min(value = 0, message = "Basis points must not be negative")
+    private Integer basisPoints; // 1800 = 18%
+
+    @Min(value = 0, message = "Minimum must not be negative")
+    private Long minimumPaise;
+
+    private Boolean isActive;
+}
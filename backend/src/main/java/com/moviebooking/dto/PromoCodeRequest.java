@@ -0,0 +1,42 @@
+package com.moviebooking.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromoCodeRequest {
+
+    @NotBlank(message = "Code is required")
+    @Size(max = 50, message = "Code must not exceed 50 characters")
+    private String code;
+
+    @Min(value = 0, message = "Basis points must not be negative")
+    @Max(value = 10000, message = "Basis points must not exceed 10000")
+    private Integer basisPoints; // 1000 = 10% off
+
+    @Min(value = 0, message = "Amount must not be negative")
+    private Long amountPaise; // Flat amount off
+
+    @Min(value = 1, message = "Maximum redemptions must be at least 1")
+    private Long maxRedemptions; // Leave empty for unlimited
+
+    @Min(value = 1, message = "Maximum per user must be at least 1")
+    private Integer maxPerUser; // Leave empty for unlimited
+
+    private LocalDateTime validFrom;
+
+    private LocalDateTime validUntil;
+
+    private Boolean isActive;
+}
@@ -0,0 +1,26 @@
+package com.moviebooking.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatAllocationRequest {
+    
+    @NotNull(message = "Number of seats is required")
+    @Min(value = 1, message = "At least one seat is required")
+    @Max(value = 10, message = "At most 10 seats can be allocated together")
+    private Integer count;
+    
+    private String seatType; // Optional: REGULAR, PREMIUM, VIP
+    
+    @Builder.Default
+    private Integer reservationTimeMinutes = 10; // How long to hold the seats
+}
@@ -0,0 +1,21 @@
+package com.moviebooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldResponse {
+    private String holdId;
+    private Long showId;
+    private List<Long> seatIds;
+    private LocalDateTime expiresAt;
+    private String message;
+}
@@ -0,0 +1,23 @@
+package com.moviebooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One push on a show's seat stream: either a full snapshot or the seats changed since the previous frame
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatStatusFrame {
+    private Long showId;
+    private String version;
+    private Boolean snapshot;
+    private List<Long> seatIds;
+    private List<String> states; // AVAILABLE, HELD or SOLD, parallel to seatIds
+}
@@ -0,0 +1,43 @@
+package com.moviebooking.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowScheduleRequest {
+    
+    @NotNull(message = "Movie ID is required")
+    private Long movieId;
+    
+    @NotNull(message = "Venue ID is required")
+    private Long venueId;
+    
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+    
+    @NotNull(message = "End date is required")
+    private LocalDate endDate; // Inclusive
+    
+    @NotEmpty(message = "At least one screen is required")
+    private List<String> screenNames;
+    
+    @NotEmpty(message = "At least one show time is required")
+    private List<LocalTime> showTimes;
+    
+    @NotNull(message = "Price is required")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Price must be positive")
+    private BigDecimal price;
+}
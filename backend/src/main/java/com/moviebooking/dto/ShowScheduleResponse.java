@@ -0,0 +1,17 @@
+package com.moviebooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowScheduleResponse {
+    private Integer showsCreated;
+    private Integer seatsCreated; // Layout seats offered by the new shows
+    private Integer showsSkipped; // Already scheduled for the same movie, screen and time
+    private String message;
+}
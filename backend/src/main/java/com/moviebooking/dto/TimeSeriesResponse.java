@@ -0,0 +1,34 @@
+package com.moviebooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSeriesResponse {
+    private String dimension; // all, show, movie, city
+    private String key;
+    private Integer stepMinutes;
+    private Integer capacity; // Seats in the show, for reading seats as occupancy; shows only
+    private List<Point> points; // Oldest first
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private LocalDateTime start;
+        private Long bookings;
+        private Long cancellations;
+        private Long seats; // Net seats sold
+        private BigDecimal revenue; // Net booked amount
+    }
+}
@@ -0,0 +1,26 @@
+package com.moviebooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntryResponse {
+    private Long id;
+    private Long showId;
+    private Integer seatCount;
+    private String seatType;
+    private String status; // WAITING, OFFERED, FULFILLED, EXPIRED, CANCELLED
+    private Integer position; // 1-based place in the queue while WAITING
+    private String holdId; // While OFFERED: book with this hold before offerExpiresAt
+    private List<Long> seatIds;
+    private LocalDateTime offerExpiresAt;
+    private LocalDateTime joinedAt;
+}
@@ -0,0 +1,28 @@
+package com.moviebooking.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistRequest {
+
+    @NotNull(message = "Show ID is required")
+    private Long showId;
+
+    @NotNull(message = "Number of seats is required")
+    @Min(value = 1, message = "At least one seat is required")
+    @Max(value = 10, message = "At most 10 seats can be requested together")
+    private Integer seatCount;
+
+    @Pattern(regexp = "REGULAR|PREMIUM|VIP", message = "Seat type must be REGULAR, PREMIUM or VIP")
+    private String seatType; // Optional: any type when not set
+}
@@ -13,7 +13,10 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+    @Index(name = "idx_bookings_date_id", columnList = "booking_date, id"),
+    @Index(name = "idx_bookings_status_date_id", columnList = "booking_status, booking_date, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -56,8 +59,9 @@ public class Booking extends BaseEntity {
     @Column(name = "transaction_id", length = 100)
     private String transactionId;
 
-    @Column(name = "booking_reference", unique = true, length = 20)
-    private String bookingReference;
+    @NotNull
+    @Column(name = "booking_reference", nullable = false, unique = true, length = 20)
+    private String bookingReference; // Assigned by BookingReferenceGenerator
 
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
@@ -77,14 +81,6 @@ public class Booking extends BaseEntity {
         this.paymentStatus = "PENDING";
     }
 
-    @PrePersist
-    public void generateBookingReference() {
-        if (this.bookingReference == null) {
-            // Generate booking reference: BK + timestamp + random
-            this.bookingReference = "BK" + System.currentTimeMillis() % 10000000;
-        }
-    }
-
     public void addSeat(Seat seat) {
         this.seats.add(seat);
     }
@@ -0,0 +1,45 @@
+package com.moviebooking.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+/**
+ * A fee or tax applied on top of seat prices.
+ * Amounts are kept in paise and rates in basis points (1/100 of a percent) so
+ * quotes can be computed with integer arithmetic.
+ */
+@Entity
+@Table(name = "pricing_rules", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"rule_type", "code"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PricingRule extends BaseEntity {
+
+    @NotBlank
+    @Column(name = "rule_type", nullable = false, length = 20)
+    private String ruleType; // FEE, TAX
+
+    @NotBlank
+    @Column(nullable = false, length = 50)
+    private String code; // CONVENIENCE, GST
+
+    @Builder.Default
+    @Min(0)
+    @Column(name = "basis_points", nullable = false)
+    private Integer basisPoints = 0; // 200 = 2%
+
+    @Builder.Default
+    @Min(0)
+    @Column(name = "minimum_paise", nullable = false)
+    private Long minimumPaise = 0L; // Floor for FEE
+
+    @Builder.Default
+    @Column(name = "is_active")
+    private Boolean isActive = true;
+}
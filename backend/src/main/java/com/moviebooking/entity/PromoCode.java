@@ -0,0 +1,62 @@
+package com.moviebooking.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A promo campaign. Exactly one of basisPoints (percentage off) and amountPaise (flat off) is set.
+ * reservedCount is how much of the global cap nodes have leased for local redemption;
+ * redeemedCount trails the actual redemptions by at most one flush interval. Both counters are
+ * only ever changed by bulk updates, never by saving the entity.
+ */
+@Entity
+@Table(name = "promo_codes")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PromoCode extends BaseEntity {
+
+    @NotBlank
+    @Column(nullable = false, unique = true, length = 50)
+    private String code; // SAVE10, FIRST50
+
+    @Builder.Default
+    @Min(0)
+    @Column(name = "basis_points", nullable = false)
+    private Integer basisPoints = 0; // 1000 = 10% off
+
+    @Builder.Default
+    @Min(0)
+    @Column(name = "amount_paise", nullable = false)
+    private Long amountPaise = 0L; // Flat amount off
+
+    @Column(name = "max_redemptions")
+    private Long maxRedemptions; // Global cap, null = unlimited
+
+    @Column(name = "max_per_user")
+    private Integer maxPerUser; // Per-user cap, null = unlimited
+
+    @Column(name = "valid_from")
+    private LocalDateTime validFrom;
+
+    @Column(name = "valid_until")
+    private LocalDateTime validUntil;
+
+    @Builder.Default
+    @Column(name = "reserved_count", nullable = false, updatable = false)
+    private Long reservedCount = 0L;
+
+    @Builder.Default
+    @Column(name = "redeemed_count", nullable = false, updatable = false)
+    private Long redeemedCount = 0L;
+
+    @Builder.Default
+    @Column(name = "is_active")
+    private Boolean isActive = true;
+}
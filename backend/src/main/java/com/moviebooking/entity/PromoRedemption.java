@@ -0,0 +1,28 @@
+package com.moviebooking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One use of a promo code, written in batches after the booking commits
+ */
+@Entity
+@Table(name = "promo_redemptions", indexes = {
+    @Index(name = "idx_promo_redemptions_code_user", columnList = "promo_code_id, user_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PromoRedemption extends BaseEntity {
+
+    @Column(name = "promo_code_id", nullable = false)
+    private Long promoCodeId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "booking_reference", nullable = false, length = 20)
+    private String bookingReference;
+}
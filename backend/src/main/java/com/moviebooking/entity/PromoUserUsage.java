@@ -0,0 +1,29 @@
+package com.moviebooking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * How often a user has used a promo code with a per-user cap.
+ * Claimed with a guarded increment inside the booking transaction, so the cap holds across nodes.
+ */
+@Entity
+@Table(name = "promo_user_usage", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"promo_code_id", "user_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PromoUserUsage extends BaseEntity {
+
+    @Column(name = "promo_code_id", nullable = false)
+    private Long promoCodeId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "used_count", nullable = false)
+    private Integer usedCount;
+}
@@ -0,0 +1,44 @@
+package com.moviebooking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * A refund owed for a cancelled booking, or for a charge that never became a booking,
+ * queued for the payment provider
+ */
+@Entity
+@Table(name = "refunds", indexes = {
+    @Index(name = "idx_refunds_status", columnList = "status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Refund extends BaseEntity {
+
+    @Column(name = "booking_id", unique = true)
+    private Long bookingId; // Null when the charge was taken but the booking failed
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "transaction_id", length = 100)
+    private String transactionId; // Original payment
+
+    @Builder.Default
+    @Column(nullable = false, length = 20)
+    private String status = "PENDING"; // PENDING, COMPLETED, FAILED
+
+    @Column(length = 500)
+    private String reason;
+
+    @Column(name = "show_cancellation_id")
+    private Long showCancellationId;
+}
@@ -0,0 +1,58 @@
+package com.moviebooking.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One seat of a screen's layout template. Every show on the screen shares these rows, and their
+ * ids are the seat ids clients use within a show; the per-show {@link Seat} only records that
+ * show's state for a seat once it has been held or sold.
+ */
+@Entity
+@Table(name = "screen_seats", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"venue_id", "screen_name", "seat_row", "seat_number"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScreenSeat extends BaseEntity {
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "venue_id", nullable = false)
+    @JsonIgnore
+    private Venue venue;
+
+    @NotBlank
+    @Column(name = "screen_name", nullable = false, length = 50)
+    private String screenName; // Screen 1, Screen 2, etc.
+
+    @NotBlank
+    @Column(name = "seat_row", nullable = false, length = 5)
+    private String seatRow; // A, B, C, etc.
+
+    @NotNull
+    @Column(name = "seat_number", nullable = false)
+    private Integer seatNumber; // 1, 2, 3, etc.
+
+    @Builder.Default
+    @Column(name = "seat_type", length = 20)
+    private String seatType = "REGULAR"; // REGULAR, PREMIUM, VIP
+
+    @Builder.Default
+    @DecimalMin(value = "0.0", inclusive = true)
+    @Column(name = "price_tier", nullable = false, precision = 10, scale = 2)
+    private BigDecimal priceTier = BigDecimal.ZERO; // Surcharge on top of the show price
+
+    public String getSeatLabel() {
+        return seatRow + seatNumber;
+    }
+}
@@ -1,18 +1,23 @@
 package com.moviebooking.entity;
 
 import jakarta.persistence.*;
-import jakarta.validation.constraints.DecimalMin;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * State of one layout seat for one show. Rows are created on first hold or sale; a seat without
+ * one is free. The layout getters below dereference the lazy show and screen seat, so load them
+ * with both fetched (see {@code SeatRepository#findByShowIdAndSeatIds}).
+ */
 @Entity
 @Table(name = "seats", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"show_id", "seat_row", "seat_number"})
+    @UniqueConstraint(columnNames = {"show_id", "screen_seat_id"})
 })
 @Getter
 @Setter
@@ -27,21 +32,11 @@ public class Seat extends BaseEntity {
     @JsonIgnoreProperties({"seats", "movie", "venue"}) // Prevent circular reference
     private Show show;
 
-    @NotBlank
-    @Column(name = "seat_row", nullable = false, length = 5)
-    private String seatRow; // A, B, C, etc.
-
     @NotNull
-    @Column(name = "seat_number", nullable = false)
-    private Integer seatNumber; // 1, 2, 3, etc.
-
-    @Builder.Default
-    @Column(name = "seat_type", length = 20)
-    private String seatType = "REGULAR"; // REGULAR, PREMIUM, VIP
-
-    @DecimalMin(value = "0.0", inclusive = true)
-    @Column(precision = 10, scale = 2)
-    private BigDecimal price;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "screen_seat_id", nullable = false)
+    @JsonIgnore
+    private ScreenSeat screenSeat; // Row, number, type and price tier come from the screen layout
 
     @Builder.Default
     @Column(name = "is_available", nullable = false)
@@ -54,17 +49,36 @@ public class Seat extends BaseEntity {
     @Column(name = "blocked_until")
     private LocalDateTime blockedUntil; // When the block expires
 
-    public Seat(Show show, String seatRow, Integer seatNumber, String seatType, BigDecimal price) {
+    @Version
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version = 0L;
+
+    public Seat(Show show, ScreenSeat screenSeat) {
         this.show = show;
-        this.seatRow = seatRow;
-        this.seatNumber = seatNumber;
-        this.seatType = seatType;
-        this.price = price;
+        this.screenSeat = screenSeat;
         this.isAvailable = true;
         this.isBlocked = false;
     }
 
+    public String getSeatRow() {
+        return screenSeat.getSeatRow();
+    }
+
+    public Integer getSeatNumber() {
+        return screenSeat.getSeatNumber();
+    }
+
+    public String getSeatType() {
+        return screenSeat.getSeatType();
+    }
+
+    public BigDecimal getPrice() {
+        return show.getPrice().add(screenSeat.getPriceTier());
+    }
+
     public String getSeatLabel() {
-        return seatRow + seatNumber;
+        return screenSeat.getSeatLabel();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.moviebooking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable copy of an issued hold token, so any node can resolve it and it survives restarts.
+ * The seats themselves are held by their blocked_until deadline, which always equals expiresAt.
+ */
+@Entity
+@Table(name = "seat_holds", indexes = {
+    @Index(name = "idx_seat_holds_expires_at", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeatHoldRecord extends BaseEntity {
+
+    @Column(name = "hold_id", nullable = false, unique = true, length = 32)
+    private String holdId;
+
+    @Column(name = "show_id", nullable = false)
+    private Long showId;
+
+    @Column(name = "seat_ids", nullable = false, length = 2000)
+    private String seatIds; // Comma-separated, in hold order
+
+    @Column(name = "owner_id")
+    private Long ownerId; // Null for anonymous holds
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
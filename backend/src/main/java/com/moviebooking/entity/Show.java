@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -58,6 +59,12 @@ public class Show extends BaseEntity {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
+    @Version
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version = 0L;
+
     public Show(Movie movie, Venue venue, LocalDate showDate, LocalTime showTime, BigDecimal price) {
         this.movie = movie;
         this.venue = venue;
@@ -0,0 +1,58 @@
+package com.moviebooking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a show cancellation. Bookings are processed in id order and every chunk
+ * advances lastBookingId in the same transaction, so an interrupted job resumes where it stopped.
+ */
+@Entity
+@Table(name = "show_cancellations", indexes = {
+    @Index(name = "idx_show_cancellations_status", columnList = "status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShowCancellation extends BaseEntity {
+
+    @Column(name = "show_id", nullable = false, unique = true)
+    private Long showId;
+
+    @Builder.Default
+    @Column(nullable = false, length = 20)
+    private String status = "PENDING"; // PENDING, RUNNING, COMPLETED
+
+    @Column(length = 500)
+    private String reason;
+
+    @Column(name = "requested_by")
+    private Long requestedBy;
+
+    @Builder.Default
+    @Column(name = "total_bookings", nullable = false)
+    private Long totalBookings = 0L;
+
+    @Builder.Default
+    @Column(name = "processed_bookings", nullable = false)
+    private Long processedBookings = 0L;
+
+    @Builder.Default
+    @Column(name = "refunds_queued", nullable = false)
+    private Long refundsQueued = 0L;
+
+    @Builder.Default
+    @Column(name = "seats_released", nullable = false)
+    private Long seatsReleased = 0L;
+
+    @Builder.Default
+    @Column(name = "last_booking_id", nullable = false)
+    private Long lastBookingId = 0L;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,30 @@
+package com.moviebooking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One value of the last persisted dashboard statistics snapshot.
+ * Totals have an empty dimension; per-day revenue is keyed by ISO date and per-city revenue by city name.
+ */
+@Entity
+@Table(name = "statistics_snapshots", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"metric", "dimension"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatisticsSnapshot extends BaseEntity {
+
+    @Column(nullable = false, length = 30)
+    private String metric; // USERS, MOVIES, BOOKINGS, REVENUE, DAY_REVENUE, CITY_REVENUE
+
+    @Builder.Default
+    @Column(nullable = false, length = 100)
+    private String dimension = "";
+
+    @Column(name = "metric_value", nullable = false)
+    private Long metricValue; // Revenue in paise
+}
@@ -0,0 +1,45 @@
+package com.moviebooking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user's place in a show's waitlist. Entries are served in id order; an OFFERED entry
+ * holds seats under holdId until offerExpiresAt.
+ */
+@Entity
+@Table(name = "waitlist_entries", indexes = {
+    @Index(name = "idx_waitlist_show_status", columnList = "show_id, status"),
+    @Index(name = "idx_waitlist_user", columnList = "user_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WaitlistEntry extends BaseEntity {
+
+    @Column(name = "show_id", nullable = false)
+    private Long showId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "seat_count", nullable = false)
+    private Integer seatCount;
+
+    @Column(name = "seat_type", length = 20)
+    private String seatType; // REGULAR, PREMIUM, VIP; null for any
+
+    @Builder.Default
+    @Column(nullable = false, length = 20)
+    private String status = "WAITING"; // WAITING, OFFERED, FULFILLED, EXPIRED, CANCELLED
+
+    @Column(name = "hold_id", length = 50)
+    private String holdId;
+
+    @Column(name = "offer_expires_at")
+    private LocalDateTime offerExpiresAt;
+}
@@ -1,20 +1,39 @@
 package com.moviebooking.repository;
 
+import com.moviebooking.dto.BookingHistoryRow;
+import com.moviebooking.dto.BookingSeatRow;
 import com.moviebooking.entity.Booking;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     
+    // Read model: one row per booking with everything a booking list shows, no entities loaded
+    String HISTORY_SELECT = "SELECT new com.moviebooking.dto.BookingHistoryRow(" +
+           "b.id, b.bookingReference, b.totalAmount, b.bookingStatus, b.paymentStatus, b.bookingDate, " +
+           "b.transactionId, b.paymentMethod, sh.id, sh.showDate, sh.showTime, sh.screenName, sh.price, " +
+           "m.id, m.title, m.genre, m.language, m.durationMinutes, m.rating, m.posterUrl, " +
+           "v.id, v.name, v.address, c.name, c.state) " +
+           "FROM Booking b JOIN b.show sh JOIN sh.movie m JOIN sh.venue v LEFT JOIN v.city c ";
+    
     Optional<Booking> findByBookingReference(String bookingReference);
     
     Page<Booking> findByUserIdOrderByBookingDateDesc(Long userId, Pageable pageable);
@@ -48,4 +67,94 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("SELECT SUM(b.totalAmount) FROM Booking b WHERE " +
            "b.bookingStatus = 'CONFIRMED' AND b.paymentStatus = 'COMPLETED'")
     Optional<java.math.BigDecimal> getTotalRevenue();
+    
+    boolean existsByShowId(Long showId);
+    
+    // Revenue per booking day and per city, for rebuilding the dashboard statistics
+    @Query("SELECT CAST(b.bookingDate AS LocalDate), SUM(b.totalAmount) FROM Booking b WHERE " +
+           "b.bookingStatus = 'CONFIRMED' AND b.paymentStatus = 'COMPLETED' AND b.bookingDate >= :from " +
+           "GROUP BY CAST(b.bookingDate AS LocalDate)")
+    List<Object[]> sumRevenueByDaySince(@Param("from") LocalDateTime from);
+    
+    @Query("SELECT c.name, SUM(b.totalAmount) FROM Booking b JOIN b.show sh JOIN sh.venue v LEFT JOIN v.city c " +
+           "WHERE b.bookingStatus = 'CONFIRMED' AND b.paymentStatus = 'COMPLETED' GROUP BY c.name")
+    List<Object[]> sumRevenueByCity();
+    
+    @Query(value = HISTORY_SELECT + "WHERE b.user.id = :userId ORDER BY b.bookingDate DESC, b.id DESC",
+           countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.user.id = :userId")
+    Page<BookingHistoryRow> findHistoryByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query(value = HISTORY_SELECT + "WHERE (:status IS NULL OR b.bookingStatus = :status) " +
+           "ORDER BY b.bookingDate DESC, b.id DESC",
+           countQuery = "SELECT COUNT(b) FROM Booking b WHERE (:status IS NULL OR b.bookingStatus = :status)")
+    Page<BookingHistoryRow> findHistory(@Param("status") String status, Pageable pageable);
+    
+    // Keyset pages on (bookingDate, id): Slice reads one extra row instead of running a count
+    @Query(HISTORY_SELECT + "WHERE (:status IS NULL OR b.bookingStatus = :status) " +
+           "ORDER BY b.bookingDate DESC, b.id DESC")
+    Slice<BookingHistoryRow> findHistoryFirst(@Param("status") String status, Pageable pageable);
+    
+    @Query(HISTORY_SELECT + "WHERE (:status IS NULL OR b.bookingStatus = :status) " +
+           "AND (b.bookingDate < :bookingDate OR (b.bookingDate = :bookingDate AND b.id < :id)) " +
+           "ORDER BY b.bookingDate DESC, b.id DESC")
+    Slice<BookingHistoryRow> findHistoryAfter(@Param("status") String status,
+                                              @Param("bookingDate") LocalDateTime bookingDate,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
+    
+    long countByBookingStatus(String bookingStatus);
+    
+    // Forward-only export: scalar rows only, so nothing accumulates in the persistence context
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b.id, b.bookingReference, b.bookingDate, b.bookingStatus, b.paymentStatus, b.paymentMethod, " +
+           "b.transactionId, b.totalAmount, u.id, u.email, sh.id, sh.showDate, sh.showTime, m.title, v.name, c.name " +
+           "FROM Booking b JOIN b.user u JOIN b.show sh JOIN sh.movie m JOIN sh.venue v LEFT JOIN v.city c " +
+           "WHERE (:status IS NULL OR b.bookingStatus = :status) ORDER BY b.id ASC")
+    Stream<Object[]> streamForExport(@Param("status") String status);
+    
+    @Query(HISTORY_SELECT + "WHERE b.bookingReference = :reference")
+    Optional<BookingHistoryRow> findHistoryByReference(@Param("reference") String reference);
+    
+    @Query(HISTORY_SELECT + "WHERE b.bookingReference = :reference AND b.user.id = :userId")
+    Optional<BookingHistoryRow> findHistoryByReferenceAndUserId(@Param("reference") String reference,
+                                                                @Param("userId") Long userId);
+    
+    @Query("SELECT new com.moviebooking.dto.BookingSeatRow(b.id, ss.id, ss.seatRow, ss.seatNumber, ss.seatType, " +
+           "sh.price + ss.priceTier) " +
+           "FROM Booking b JOIN b.show sh JOIN b.seats s JOIN s.screenSeat ss " +
+           "WHERE b.id IN :bookingIds ORDER BY ss.seatRow ASC, ss.seatNumber ASC")
+    List<BookingSeatRow> findSeatRowsByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
+    
+    // Locked so a concurrent single-booking cancellation waits for this chunk, then finds the booking cancelled
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.id, b.user.id, b.totalAmount, b.paymentStatus, b.transactionId, b.bookingDate, b.bookingStatus " +
+           "FROM Booking b " +
+           "WHERE b.show.id = :showId AND b.id > :afterId AND b.bookingStatus IN ('CONFIRMED', 'RESERVED') " +
+           "ORDER BY b.id ASC")
+    List<Object[]> findCancellableByShowId(@Param("showId") Long showId,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+    
+    // Layout ids, the ids seats are addressed by within their show
+    @Query("SELECT s.screenSeat.id FROM Booking b JOIN b.seats s WHERE b.id IN :bookingIds")
+    List<Long> findSeatIdsByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
+    
+    @Modifying
+    @Query("UPDATE Booking b SET b.bookingStatus = 'CANCELLED', " +
+           "b.paymentStatus = CASE WHEN b.paymentStatus = 'COMPLETED' THEN 'REFUND_PENDING' ELSE b.paymentStatus END " +
+           "WHERE b.id IN :bookingIds AND b.bookingStatus IN ('CONFIRMED', 'RESERVED')")
+    int cancelBookings(@Param("bookingIds") Collection<Long> bookingIds);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findByIdForUpdate(@Param("id") Long id);
+    
+    // Single cancellation by the customer or an admin; unlike cancelBookings it leaves the payment status alone
+    @Modifying
+    @Query("UPDATE Booking b SET b.bookingStatus = 'CANCELLED' " +
+           "WHERE b.id = :bookingId AND b.bookingStatus IN ('CONFIRMED', 'RESERVED')")
+    int cancelBooking(@Param("bookingId") Long bookingId);
 }
\ No newline at end of file
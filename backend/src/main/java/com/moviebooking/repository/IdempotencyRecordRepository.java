@@ -0,0 +1,25 @@
+package com.moviebooking.repository;
+
+import com.moviebooking.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    
+    Optional<IdempotencyRecord> findByScope(String scope);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scope = :scope")
+    int deleteByScope(@Param("scope") String scope);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :currentTime")
+    int deleteExpired(@Param("currentTime") LocalDateTime currentTime);
+}
@@ -0,0 +1,15 @@
+package com.moviebooking.repository;
+
+import com.moviebooking.entity.PricingRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PricingRuleRepository extends JpaRepository<PricingRule, Long> {
+
+    List<PricingRule> findByIsActiveTrueOrderByIdAsc();
+
+    boolean existsByRuleTypeAndCode(String ruleType, String code);
+}
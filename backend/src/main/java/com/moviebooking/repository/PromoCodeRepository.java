@@ -0,0 +1,39 @@
+package com.moviebooking.repository;
+
+import com.moviebooking.entity.PromoCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PromoCodeRepository extends JpaRepository<PromoCode, Long> {
+    
+    boolean existsByCode(String code);
+    
+    @Query("SELECT p FROM PromoCode p WHERE p.isActive = true " +
+           "AND (p.validUntil IS NULL OR p.validUntil > :currentTime)")
+    List<PromoCode> findRedeemable(@Param("currentTime") LocalDateTime currentTime);
+    
+    @Query("SELECT p.reservedCount, p.maxRedemptions FROM PromoCode p WHERE p.id = :id")
+    List<Object[]> findReservation(@Param("id") Long id);
+    
+    // Compare-and-set on the reserved counter, so concurrent leases never overshoot the cap
+    @Modifying
+    @Query("UPDATE PromoCode p SET p.reservedCount = p.reservedCount + :count " +
+           "WHERE p.id = :id AND p.reservedCount = :expected")
+    int reserve(@Param("id") Long id, @Param("expected") long expected, @Param("count") long count);
+    
+    @Modifying
+    @Query("UPDATE PromoCode p SET p.reservedCount = p.reservedCount - :count " +
+           "WHERE p.id = :id AND p.reservedCount >= :count")
+    int unreserve(@Param("id") Long id, @Param("count") long count);
+    
+    @Modifying
+    @Query("UPDATE PromoCode p SET p.redeemedCount = p.redeemedCount + :count WHERE p.id = :id")
+    int addRedemptions(@Param("id") Long id, @Param("count") long count);
+}
@@ -0,0 +1,11 @@
+package com.moviebooking.repository;
+
+import com.moviebooking.entity.PromoRedemption;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PromoRedemptionRepository extends JpaRepository<PromoRedemption, Long> {
+    
+    int countByPromoCodeIdAndUserId(Long promoCodeId, Long userId);
+}
@@ -0,0 +1,22 @@
+package com.moviebooking.repository;
+
+import com.moviebooking.entity.PromoUserUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PromoUserUsageRepository extends JpaRepository<PromoUserUsage, Long> {
+    
+    boolean existsByPromoCodeIdAndUserId(Long promoCodeId, Long userId);
+    
+    // Row lock is held until the booking commits, so concurrent uses by the same user queue up here
+    @Modifying
+    @Query("UPDATE PromoUserUsage u SET u.usedCount = u.usedCount + 1 " +
+           "WHERE u.promoCodeId = :promoCodeId AND u.userId = :userId AND u.usedCount < :maxPerUser")
+    int claim(@Param("promoCodeId") Long promoCodeId,
+              @Param("userId") Long userId,
+              @Param("maxPerUser") int maxPerUser);
+}
@@ -0,0 +1,20 @@
+package com.moviebooking.repository;
+
+import com.moviebooking.entity.ScreenSeat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ScreenSeatRepository extends JpaRepository<ScreenSeat, Long> {
+    
+    @Query("SELECT ss FROM ScreenSeat ss WHERE ss.venue.id = :venueId AND ss.screenName = :screenName " +
+           "ORDER BY ss.seatRow ASC, ss.seatNumber ASC")
+    List<ScreenSeat> findLayout(@Param("venueId") Long venueId, @Param("screenName") String screenName);
+    
+    @Query("SELECT COUNT(ss) FROM ScreenSeat ss WHERE ss.venue.id = :venueId AND ss.screenName = :screenName")
+    int countLayoutSeats(@Param("venueId") Long venueId, @Param("screenName") String screenName);
+}
@@ -0,0 +1,32 @@
+package com.moviebooking.repository;
+
+import com.moviebooking.entity.SeatHoldRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface SeatHoldRecordRepository extends JpaRepository<SeatHoldRecord, Long> {
+    
+    Optional<SeatHoldRecord> findByHoldId(String holdId);
+    
+    // Guarded on the current deadline so only one concurrent extension or release wins
+    @Modifying
+    @Query("UPDATE SeatHoldRecord h SET h.expiresAt = :newExpiry WHERE h.holdId = :holdId AND h.expiresAt = :currentExpiry")
+    int extend(@Param("holdId") String holdId,
+               @Param("currentExpiry") LocalDateTime currentExpiry,
+               @Param("newExpiry") LocalDateTime newExpiry);
+    
+    @Modifying
+    @Query("DELETE FROM SeatHoldRecord h WHERE h.holdId = :holdId AND h.expiresAt = :expiresAt")
+    int deleteHold(@Param("holdId") String holdId, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Query("DELETE FROM SeatHoldRecord h WHERE h.expiresAt < :currentTime")
+    int deleteExpired(@Param("currentTime") LocalDateTime currentTime);
+}
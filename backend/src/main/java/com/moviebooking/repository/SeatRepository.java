@@ -1,60 +1,146 @@
 package com.moviebooking.repository;
 
 import com.moviebooking.entity.Seat;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+/**
+ * Per-show seat state. Seats are addressed by their screen layout id ({@code ScreenSeat}) within a show;
+ * a seats row only exists once a seat of the show has been held or sold, so a seat without a row is free.
+ */
 @Repository
 public interface SeatRepository extends JpaRepository<Seat, Long> {
     
-    @Query("SELECT s FROM Seat s WHERE s.show.id = :showId ORDER BY s.seatRow ASC, s.seatNumber ASC")
-    List<Seat> findByShowIdOrderBySeatRowAscSeatNumberAsc(@Param("showId") Long showId);
+    @Query("SELECT s FROM Seat s JOIN FETCH s.show JOIN FETCH s.screenSeat")
+    List<Seat> findAllWithLayout(Pageable pageable);
     
-    @Query("SELECT s FROM Seat s WHERE s.show.id = :showId AND s.isAvailable = true ORDER BY s.seatRow ASC, s.seatNumber ASC")
-    List<Seat> findByShowIdAndIsAvailableTrueOrderBySeatRowAscSeatNumberAsc(@Param("showId") Long showId);
+    @Query("SELECT COUNT(ss) FROM ScreenSeat ss, Show sh " +
+           "WHERE sh.id = :showId AND ss.venue = sh.venue AND ss.screenName = sh.screenName")
+    int countTotalSeatsByShowId(@Param("showId") Long showId);
     
-    @Query("SELECT s FROM Seat s WHERE s.show.id = :showId AND s.isAvailable = false ORDER BY s.seatRow ASC, s.seatNumber ASC")
-    List<Seat> findByShowIdAndIsAvailableFalseOrderBySeatRowAscSeatNumberAsc(@Param("showId") Long showId);
+    @Query("SELECT COUNT(s) FROM Seat s WHERE s.show.id = :showId AND s.isAvailable = false")
+    int countSoldSeatsByShowId(@Param("showId") Long showId);
     
-    List<Seat> findByIdInAndIsAvailableTrue(List<Long> seatIds);
+    // Shows without a layout have nothing to count and are left out
+    @Query("SELECT sh.id, " +
+           "(SELECT COUNT(ss) FROM ScreenSeat ss WHERE ss.venue = sh.venue AND ss.screenName = sh.screenName) - " +
+           "(SELECT COUNT(s) FROM Seat s WHERE s.show = sh AND s.isAvailable = false) " +
+           "FROM Show sh WHERE sh.id IN :showIds " +
+           "AND EXISTS (SELECT ss.id FROM ScreenSeat ss WHERE ss.venue = sh.venue AND ss.screenName = sh.screenName)")
+    List<Object[]> countAvailableSeatsByShowIds(@Param("showIds") Collection<Long> showIds);
     
-    @Query("SELECT s FROM Seat s WHERE s.show.id = :showId AND s.seatRow = :row ORDER BY s.seatNumber ASC")
-    List<Seat> findByShowIdAndSeatRow(@Param("showId") Long showId, @Param("row") String row);
+    @Query("SELECT s FROM Seat s JOIN FETCH s.show JOIN FETCH s.screenSeat " +
+           "WHERE s.show.id = :showId AND s.screenSeat.id IN :seatIds")
+    List<Seat> findByShowIdAndSeatIds(@Param("showId") Long showId, @Param("seatIds") Collection<Long> seatIds);
     
-    @Query("SELECT COUNT(s) FROM Seat s WHERE s.show.id = :showId AND s.isAvailable = true")
-    int countAvailableSeatsByShowId(@Param("showId") Long showId);
+    @Query("SELECT s.id FROM Seat s WHERE s.show.id = :showId AND s.screenSeat.id IN :seatIds")
+    List<Long> findRowIds(@Param("showId") Long showId, @Param("seatIds") Collection<Long> seatIds);
     
-    @Query("SELECT COUNT(s) FROM Seat s WHERE s.show.id = :showId")
-    int countTotalSeatsByShowId(@Param("showId") Long showId);
+    // Seat inventory support: the show's whole layout, with state from the seats that have a row
+    @Query("SELECT ss.id, ss.seatRow, ss.seatNumber, ss.seatType, sh.price + ss.priceTier, " +
+           "COALESCE(s.isAvailable, true), COALESCE(s.isBlocked, false), s.blockedUntil " +
+           "FROM Show sh JOIN ScreenSeat ss ON ss.venue = sh.venue AND ss.screenName = sh.screenName " +
+           "LEFT JOIN Seat s ON s.show = sh AND s.screenSeat = ss " +
+           "WHERE sh.id = :showId")
+    List<Object[]> findSeatLayoutByShowId(@Param("showId") Long showId);
+    
+    // Every seat write bumps its version, so this pair changes whenever any seat of the show does, on any node
+    @Query("SELECT COUNT(s), COALESCE(SUM(s.version), 0) FROM Seat s WHERE s.show.id = :showId")
+    List<Object[]> findSeatStateStamp(@Param("showId") Long showId);
+    
+    // State rows for seats of the show's layout that have none yet; concurrent callers may collide on the unique key
+    @Modifying
+    @Query(value = "INSERT INTO seats (show_id, screen_seat_id, is_available, is_blocked, version, created_at, updated_at) " +
+                   "SELECT sh.id, ss.id, TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM shows sh " +
+                   "JOIN screen_seats ss ON ss.venue_id = sh.venue_id AND ss.screen_name = sh.screen_name " +
+                   "WHERE sh.id = :showId AND ss.id IN :seatIds " +
+                   "AND NOT EXISTS (SELECT 1 FROM seats st WHERE st.show_id = sh.id AND st.screen_seat_id = ss.id)",
+           nativeQuery = true)
+    int createMissingSeats(@Param("showId") Long showId, @Param("seatIds") Collection<Long> seatIds);
+    
+    // Row locks are taken in seat id order; callers spanning shows lock one show at a time in show id order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s.screenSeat.id FROM Seat s WHERE s.screenSeat.id IN :seatIds AND s.show.id = :showId ORDER BY s.screenSeat.id ASC")
+    List<Long> lockSeats(@Param("seatIds") Collection<Long> seatIds, @Param("showId") Long showId);
     
-    // New methods for booking flow
-    @Query("SELECT s FROM Seat s WHERE s.show.id = :showId AND s.isAvailable = true AND s.isBlocked = false")
-    List<Seat> findByShowIdAndIsAvailableTrueAndIsBlockedFalse(@Param("showId") Long showId);
+    @Modifying
+    @Query("UPDATE Seat s SET s.version = s.version + 1, s.isBlocked = true, s.blockedUntil = :blockedUntil " +
+           "WHERE s.screenSeat.id IN :seatIds AND s.show.id = :showId AND s.isAvailable = true " +
+           "AND (s.isBlocked = false OR s.blockedUntil < :currentTime) " +
+           "AND s.show.id IN (SELECT sh.id FROM Show sh WHERE sh.isActive = true)")
+    int claimSeats(@Param("seatIds") Collection<Long> seatIds,
+                   @Param("showId") Long showId,
+                   @Param("blockedUntil") LocalDateTime blockedUntil,
+                   @Param("currentTime") LocalDateTime currentTime);
     
-    @Query("SELECT s FROM Seat s WHERE s.id IN :seatIds AND s.show.id = :showId")
-    List<Seat> findByIdInAndShowId(@Param("seatIds") List<Long> seatIds, @Param("showId") Long showId);
+    @Modifying
+    @Query("UPDATE Seat s SET s.version = s.version + 1, s.isBlocked = false, s.blockedUntil = null " +
+           "WHERE s.screenSeat.id IN :seatIds AND s.show.id = :showId")
+    int releaseHolds(@Param("seatIds") Collection<Long> seatIds, @Param("showId") Long showId);
     
-    @Query("SELECT s FROM Seat s WHERE s.isBlocked = true AND s.blockedUntil < :currentTime")
-    List<Seat> findExpiredBlockedSeats(@Param("currentTime") LocalDateTime currentTime);
+    @Modifying
+    @Query("UPDATE Seat s SET s.version = s.version + 1, s.blockedUntil = :newUntil " +
+           "WHERE s.screenSeat.id IN :seatIds AND s.show.id = :showId AND s.isAvailable = true " +
+           "AND s.isBlocked = true AND s.blockedUntil = :currentUntil")
+    int extendHolds(@Param("seatIds") Collection<Long> seatIds,
+                    @Param("showId") Long showId,
+                    @Param("currentUntil") LocalDateTime currentUntil,
+                    @Param("newUntil") LocalDateTime newUntil);
+    
+    // Sale under a hold token: every seat must still carry this hold's deadline, and it must not have passed
+    @Modifying
+    @Query("UPDATE Seat s SET s.version = s.version + 1, s.isAvailable = false, s.isBlocked = false, s.blockedUntil = null " +
+           "WHERE s.screenSeat.id IN :seatIds AND s.show.id = :showId AND s.isAvailable = true " +
+           "AND s.isBlocked = true AND s.blockedUntil = :holdUntil AND s.blockedUntil >= :currentTime " +
+           "AND s.show.id IN (SELECT sh.id FROM Show sh WHERE sh.isActive = true)")
+    int sellSeats(@Param("seatIds") Collection<Long> seatIds,
+                  @Param("showId") Long showId,
+                  @Param("holdUntil") LocalDateTime holdUntil,
+                  @Param("currentTime") LocalDateTime currentTime);
+    
+    // Direct sale without a hold token: seats under a live hold are not for sale
+    @Modifying
+    @Query("UPDATE Seat s SET s.version = s.version + 1, s.isAvailable = false, s.isBlocked = false, s.blockedUntil = null " +
+           "WHERE s.screenSeat.id IN :seatIds AND s.show.id = :showId AND s.isAvailable = true " +
+           "AND (s.isBlocked = false OR s.blockedUntil < :currentTime) " +
+           "AND s.show.id IN (SELECT sh.id FROM Show sh WHERE sh.isActive = true)")
+    int sellFreeSeats(@Param("seatIds") Collection<Long> seatIds,
+                      @Param("showId") Long showId,
+                      @Param("currentTime") LocalDateTime currentTime);
+    
+    @Modifying
+    @Query("UPDATE Seat s SET s.version = s.version + 1, s.isBlocked = false, s.blockedUntil = null " +
+           "WHERE s.screenSeat.id IN :seatIds AND s.show.id = :showId " +
+           "AND s.isBlocked = true AND s.blockedUntil <= :currentTime")
+    int releaseExpiredHolds(@Param("seatIds") Collection<Long> seatIds,
+                            @Param("showId") Long showId,
+                            @Param("currentTime") LocalDateTime currentTime);
     
     @Modifying
-    @Query("UPDATE Seat s SET s.isBlocked = :blocked WHERE s.id IN :seatIds")
-    void updateSeatBlockStatus(@Param("seatIds") List<Long> seatIds, @Param("blocked") Boolean blocked);
+    @Query("UPDATE Seat s SET s.version = s.version + 1, s.isBlocked = false, s.blockedUntil = null " +
+           "WHERE s.isBlocked = true AND (s.blockedUntil IS NULL OR s.blockedUntil < :currentTime)")
+    int releaseAllExpiredHolds(@Param("currentTime") LocalDateTime currentTime);
     
     @Modifying
-    @Query("UPDATE Seat s SET s.isAvailable = false WHERE s.id IN :seatIds")
-    void markSeatsAsBooked(@Param("seatIds") List<Long> seatIds);
+    @Query("UPDATE Seat s SET s.version = s.version + 1, s.isBlocked = false, s.blockedUntil = null " +
+           "WHERE s.show.id = :showId AND s.isBlocked = true")
+    int releaseAllHoldsForShow(@Param("showId") Long showId);
     
     @Modifying
-    @Query("UPDATE Seat s SET s.isAvailable = true WHERE s.id IN :seatIds")
-    void markSeatsAsAvailable(@Param("seatIds") List<Long> seatIds);
+    @Query("UPDATE Seat s SET s.version = s.version + 1, s.isAvailable = true " +
+           "WHERE s.screenSeat.id IN :seatIds AND s.show.id = :showId AND s.isAvailable = false")
+    int releaseSoldSeats(@Param("seatIds") Collection<Long> seatIds, @Param("showId") Long showId);
     
-    @Query("SELECT CASE WHEN COUNT(s) > 0 THEN true ELSE false END FROM Seat s WHERE s.show.id = :showId AND s.seatRow = :seatRow AND s.seatNumber = :seatNumber")
-    Boolean existsByShowIdAndSeatRowAndSeatNumber(@Param("showId") Long showId, @Param("seatRow") String seatRow, @Param("seatNumber") Integer seatNumber);
-}
\ No newline at end of file
+    @Query("SELECT s.screenSeat.id, s.show.id, s.blockedUntil FROM Seat s WHERE s.isBlocked = true AND s.blockedUntil >= :currentTime")
+    List<Object[]> findActiveHolds(@Param("currentTime") LocalDateTime currentTime);
+}
@@ -0,0 +1,43 @@
+package com.moviebooking.repository;
+
+import com.moviebooking.entity.ShowCancellation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ShowCancellationRepository extends JpaRepository<ShowCancellation, Long> {
+    
+    Optional<ShowCancellation> findByShowId(Long showId);
+    
+    @Query("SELECT c FROM ShowCancellation c WHERE c.status IN ('PENDING', 'RUNNING') ORDER BY c.id ASC")
+    List<ShowCancellation> findUnfinished();
+    
+    // Advances the cursor only if no other worker has moved it, so a chunk is never applied twice
+    @Modifying
+    @Query("UPDATE ShowCancellation c SET c.status = 'RUNNING', c.lastBookingId = :lastBookingId, " +
+           "c.processedBookings = c.processedBookings + :bookings, c.refundsQueued = c.refundsQueued + :refunds, " +
+           "c.seatsReleased = c.seatsReleased + :seats " +
+           "WHERE c.id = :id AND c.lastBookingId = :expectedBookingId AND c.status <> 'COMPLETED'")
+    int recordProgress(@Param("id") Long id,
+                       @Param("expectedBookingId") Long expectedBookingId,
+                       @Param("lastBookingId") Long lastBookingId,
+                       @Param("bookings") long bookings,
+                       @Param("refunds") long refunds,
+                       @Param("seats") long seats);
+    
+    @Modifying
+    @Query("UPDATE ShowCancellation c SET c.lastBookingId = 0 WHERE c.id = :id AND c.lastBookingId = :expectedBookingId")
+    int rewind(@Param("id") Long id, @Param("expectedBookingId") Long expectedBookingId);
+    
+    @Modifying
+    @Query("UPDATE ShowCancellation c SET c.status = 'COMPLETED', c.completedAt = :completedAt " +
+           "WHERE c.id = :id AND c.status <> 'COMPLETED'")
+    int complete(@Param("id") Long id, @Param("completedAt") LocalDateTime completedAt);
+}
@@ -4,11 +4,14 @@ import com.moviebooking.entity.Show;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -125,4 +128,45 @@ public interface ShowRepository extends JpaRepository<Show, Long> {
     List<Show> findByMovieIdAndCityAndDate(@Param("movieId") Long movieId, 
                                           @Param("city") String city, 
                                           @Param("date") LocalDate date);
-}
\ No newline at end of file
+
+    // Availability counter maintenance
+    @Modifying
+    @Query("UPDATE Show s SET s.version = s.version + 1, s.availableSeats = s.availableSeats - :count " +
+           "WHERE s.id = :showId AND s.availableSeats >= :count")
+    int decrementAvailableSeats(@Param("showId") Long showId, @Param("count") int count);
+
+    @Modifying
+    @Query("UPDATE Show s SET s.version = s.version + 1, s.availableSeats = s.availableSeats + :count " +
+           "WHERE s.id = :showId AND s.availableSeats + :count <= s.totalSeats")
+    int incrementAvailableSeats(@Param("showId") Long showId, @Param("count") int count);
+
+    @Query("SELECT s.id, s.availableSeats FROM Show s " +
+           "WHERE s.isActive = true AND s.showDate >= :date AND s.id > :afterId ORDER BY s.id ASC")
+    List<Object[]> findAvailabilityCounters(@Param("date") LocalDate date,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Show s SET s.version = s.version + 1, s.availableSeats = :actual " +
+           "WHERE s.id = :showId AND s.availableSeats = :expected")
+    int resetAvailableSeats(@Param("showId") Long showId,
+                            @Param("expected") Integer expected,
+                            @Param("actual") int actual);
+    
+    @Query("SELECT s.id FROM Show s WHERE s.id IN :showIds " +
+           "AND (s.showDate < :date OR (s.showDate = :date AND s.showTime <= :time))")
+    List<Long> findStartedIds(@Param("showIds") Collection<Long> showIds,
+                              @Param("date") LocalDate date,
+                              @Param("time") LocalTime time);
+
+    // Bulk scheduling support
+    @Query("SELECT s.showDate, s.showTime, s.screenName FROM Show s " +
+           "WHERE s.movie.id = :movieId AND s.venue.id = :venueId AND s.showDate BETWEEN :fromDate AND :toDate")
+    List<Object[]> findScheduleSlots(@Param("movieId") Long movieId,
+                                     @Param("venueId") Long venueId,
+                                     @Param("fromDate") LocalDate fromDate,
+                                     @Param("toDate") LocalDate toDate);
+    
+    @Query("SELECT s.movie.id, c.name FROM Show s JOIN s.venue v LEFT JOIN v.city c WHERE s.id = :showId")
+    List<Object[]> findMovieAndCityById(@Param("showId") Long showId);
+}
@@ -0,0 +1,9 @@
+package com.moviebooking.repository;
+
+import com.moviebooking.entity.StatisticsSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StatisticsSnapshotRepository extends JpaRepository<StatisticsSnapshot, Long> {
+}
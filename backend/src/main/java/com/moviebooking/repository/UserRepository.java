@@ -3,6 +3,7 @@ package com.moviebooking.repository;
 import com.moviebooking.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -23,6 +24,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Page<User> findByIsActiveTrue(Pageable pageable);
     
+    // Keyset pages on id
+    Slice<User> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+    
+    Slice<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
     @Query("SELECT u FROM User u WHERE u.isActive = true AND " +
            "(LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
@@ -0,0 +1,44 @@
+package com.moviebooking.repository;
+
+import com.moviebooking.entity.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+    
+    boolean existsByShowIdAndUserIdAndStatusIn(Long showId, Long userId, Collection<String> statuses);
+    
+    List<WaitlistEntry> findByUserIdOrderByIdDesc(Long userId);
+    
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.status IN ('WAITING', 'OFFERED') ORDER BY w.id ASC")
+    List<WaitlistEntry> findOpen();
+    
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'OFFERED', w.holdId = :holdId, w.offerExpiresAt = :expiresAt " +
+           "WHERE w.id = :id AND w.status = 'WAITING'")
+    int markOffered(@Param("id") Long id, @Param("holdId") String holdId, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    // Guarded on the current status so a closed entry is never reopened
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = :status " +
+           "WHERE w.id = :id AND w.status IN ('WAITING', 'OFFERED')")
+    int close(@Param("id") Long id, @Param("status") String status);
+    
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'CANCELLED' " +
+           "WHERE w.showId = :showId AND w.status IN ('WAITING', 'OFFERED')")
+    int closeAllForShow(@Param("showId") Long showId);
+    
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'WAITING', w.holdId = NULL, w.offerExpiresAt = NULL " +
+           "WHERE w.status = 'OFFERED'")
+    int requeueOffers();
+}
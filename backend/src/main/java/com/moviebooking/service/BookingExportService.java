@@ -0,0 +1,169 @@
+package com.moviebooking.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moviebooking.repository.BookingRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every booking as gzipped CSV or NDJSON.
+ * Rows come from a forward-only query cursor and are written straight to the response, so heap
+ * use stays flat however many bookings are exported: the query selects scalars rather than
+ * entities (nothing to detach or clear) and only one row is held at a time.
+ */
+@Slf4j
+@Service
+public class BookingExportService {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    // Same order as the columns of BookingRepository.streamForExport
+    private static final String[] COLUMNS = {
+            "id", "bookingReference", "bookingDate", "bookingStatus", "paymentStatus", "paymentMethod",
+            "transactionId", "totalAmount", "userId", "userEmail", "showId", "showDate", "showTime",
+            "movieTitle", "venueName", "city"
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BookingRepository bookingRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${booking.export.timeout-ms:3600000}")
+    private long timeoutMs;
+
+    public BookingExportService(BookingRepository bookingRepository,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Response body writing the bookings, optionally only those with a status, in the given format
+     */
+    public StreamingResponseBody export(String format, String status, HttpServletRequest request) {
+        String filter = status != null && !status.isEmpty() ? status : null;
+        return out -> {
+            // The default async timeout is sized for ordinary requests, not for a full export
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().setTimeout(timeoutMs);
+            }
+            long started = System.currentTimeMillis();
+            long rows = write(format, filter, out);
+            log.info("Exported {} bookings as {} in {} ms", rows, format, System.currentTimeMillis() - started);
+        };
+    }
+
+    private long write(String format, String status, OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        JsonGenerator json = null;
+        if (NDJSON.equals(format)) {
+            // One object per line
+            json = objectMapper.getFactory().createGenerator(writer).setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        } else {
+            writeCsvRow(writer, COLUMNS);
+        }
+        JsonGenerator generator = json;
+
+        Long rows;
+        try {
+            rows = transactionTemplate.execute(tx -> {
+                long count = 0L;
+                try (Stream<Object[]> bookings = bookingRepository.streamForExport(status)) {
+                    Iterator<Object[]> iterator = bookings.iterator();
+                    while (iterator.hasNext()) {
+                        Object[] row = iterator.next();
+                        if (generator != null) {
+                            writeJsonRow(generator, row);
+                        } else {
+                            writeCsvRow(writer, row);
+                        }
+                        count++;
+                    }
+                } catch (IOException e) {
+                    // Typically the client went away; stop reading instead of draining the cursor
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        long count = rows != null ? rows : 0L;
+        if (json != null) {
+            if (count > 0) {
+                // Ends the last line as well
+                json.writeRaw('\n');
+            }
+            json.flush();
+        }
+        writer.flush();
+        gzip.finish();
+        return count;
+    }
+
+    private static void writeCsvRow(Writer writer, Object[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = row[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value instanceof BigDecimal amount ? amount.toPlainString() : value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static void writeJsonRow(JsonGenerator json, Object[] row) throws IOException {
+        json.writeStartObject();
+        for (int i = 0; i < row.length; i++) {
+            Object value = row[i];
+            json.writeFieldName(COLUMNS[i]);
+            if (value == null) {
+                json.writeNull();
+            } else if (value instanceof BigDecimal amount) {
+                json.writeNumber(amount);
+            } else if (value instanceof Long number) {
+                json.writeNumber(number);
+            } else {
+                json.writeString(value.toString());
+            }
+        }
+        json.writeEndObject();
+    }
+}
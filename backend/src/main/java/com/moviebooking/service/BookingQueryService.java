@@ -0,0 +1,169 @@
+package com.moviebooking.service;
+
+import com.moviebooking.dto.*;
+import com.moviebooking.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Read side of bookings.
+ * Booking lists are built from two flat projections, one for the bookings with their show,
+ * movie and venue and one for the seats of the whole page, so a page costs two queries
+ * (plus a count) however many bookings it holds and no entity or lazy association is loaded.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class BookingQueryService {
+
+    private final BookingRepository bookingRepository;
+    private final CachedCounts cachedCounts;
+
+    public Page<BookingResponse> findUserBookings(Long userId, Pageable pageable) {
+        return assemble(bookingRepository.findHistoryByUserId(userId, pageable));
+    }
+
+    /**
+     * All bookings, optionally only those with the given status
+     */
+    public Page<BookingResponse> findBookings(String status, Pageable pageable) {
+        return assemble(bookingRepository.findHistory(status != null && !status.isEmpty() ? status : null, pageable));
+    }
+
+    /**
+     * All bookings newest first, read by seeking past the cursor on (bookingDate, id);
+     * every page costs the same however deep it is. The total is only counted when asked for,
+     * and then served from a short-lived cache.
+     */
+    public CursorPage<BookingResponse> scrollBookings(String status, String cursor, int size, boolean withTotal) {
+        String filter = status != null && !status.isEmpty() ? status : null;
+        Pageable pageable = PageRequest.of(0, size);
+        Slice<BookingHistoryRow> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = bookingRepository.findHistoryFirst(filter, pageable);
+        } else {
+            String[] keys = PageCursor.decode(cursor, 2);
+            try {
+                rows = bookingRepository.findHistoryAfter(filter, LocalDateTime.parse(keys[0]), Long.valueOf(keys[1]), pageable);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        List<Long> bookingIds = rows.getContent().stream().map(BookingHistoryRow::bookingId).toList();
+        Map<Long, List<SeatDTO>> seats = bookingIds.isEmpty() ? Map.of() : seatsByBooking(bookingIds);
+        List<BookingResponse> content = rows.getContent().stream()
+                .map(row -> toResponse(row, seats.getOrDefault(row.bookingId(), List.of())))
+                .toList();
+
+        String nextCursor = null;
+        if (rows.hasNext()) {
+            BookingHistoryRow last = rows.getContent().get(rows.getNumberOfElements() - 1);
+            nextCursor = PageCursor.encode(last.bookingDate().toString(), last.bookingId().toString());
+        }
+        Long total = null;
+        if (withTotal) {
+            total = cachedCounts.get("bookings:" + (filter != null ? filter : "*"),
+                    () -> filter != null ? bookingRepository.countByBookingStatus(filter) : bookingRepository.count());
+        }
+
+        return CursorPage.<BookingResponse>builder()
+                .content(content)
+                .size(size)
+                .hasNext(rows.hasNext())
+                .nextCursor(nextCursor)
+                .approximateTotal(total)
+                .build();
+    }
+
+    /**
+     * Booking with the given reference, restricted to the user's own bookings unless userId is null
+     */
+    public Optional<BookingResponse> findByReference(String reference, Long userId) {
+        Optional<BookingHistoryRow> found = userId == null
+                ? bookingRepository.findHistoryByReference(reference)
+                : bookingRepository.findHistoryByReferenceAndUserId(reference, userId);
+        return found
+                .map(row -> toResponse(row, seatsByBooking(List.of(row.bookingId()))
+                        .getOrDefault(row.bookingId(), List.of())));
+    }
+
+    private Page<BookingResponse> assemble(Page<BookingHistoryRow> rows) {
+        if (rows.isEmpty()) {
+            return rows.map(row -> toResponse(row, List.of()));
+        }
+        List<Long> bookingIds = rows.getContent().stream().map(BookingHistoryRow::bookingId).toList();
+        Map<Long, List<SeatDTO>> seats = seatsByBooking(bookingIds);
+        return rows.map(row -> toResponse(row, seats.getOrDefault(row.bookingId(), List.of())));
+    }
+
+    private Map<Long, List<SeatDTO>> seatsByBooking(Collection<Long> bookingIds) {
+        Map<Long, List<SeatDTO>> seats = new HashMap<>();
+        for (BookingSeatRow row : bookingRepository.findSeatRowsByBookingIds(bookingIds)) {
+            seats.computeIfAbsent(row.bookingId(), id -> new ArrayList<>()).add(SeatDTO.builder()
+                    .id(row.seatId())
+                    .seatRow(row.seatRow())
+                    .seatNumber(row.seatNumber())
+                    .seatType(row.seatType())
+                    .price(row.price())
+                    .displayName(row.seatRow() + row.seatNumber())
+                    .build());
+        }
+        return seats;
+    }
+
+    private BookingResponse toResponse(BookingHistoryRow row, List<SeatDTO> seats) {
+        MovieDTO movie = MovieDTO.builder()
+                .id(row.movieId())
+                .title(row.movieTitle())
+                .genre(row.movieGenre())
+                .language(row.movieLanguage())
+                .duration(row.movieDuration())
+                .rating(row.movieRating())
+                .posterUrl(row.moviePosterUrl())
+                .build();
+
+        VenueDTO venue = VenueDTO.builder()
+                .id(row.venueId())
+                .name(row.venueName())
+                .address(row.venueAddress())
+                .city(row.cityName())
+                .state(row.cityState())
+                .build();
+
+        ShowDTO show = ShowDTO.builder()
+                .id(row.showId())
+                .movie(movie)
+                .venue(venue)
+                .showDate(row.showDate())
+                .showTime(row.showTime())
+                .screenName(row.screenName())
+                .price(row.showPrice())
+                .build();
+
+        // Can cancel until 2 hours before the show
+        LocalDateTime cancellationDeadline = LocalDateTime.of(row.showDate(), row.showTime()).minusHours(2);
+
+        return BookingResponse.builder()
+                .id(row.bookingId())
+                .bookingReference(row.bookingReference())
+                .show(show)
+                .seats(seats)
+                .totalAmount(row.totalAmount())
+                .bookingStatus(row.bookingStatus())
+                .paymentStatus(row.paymentStatus())
+                .bookingDate(row.bookingDate())
+                .canCancel("CONFIRMED".equals(row.bookingStatus()) && LocalDateTime.now().isBefore(cancellationDeadline))
+                .cancellationDeadline(cancellationDeadline)
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.moviebooking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style booking references: 41 bits of milliseconds since 2024-01-01, a 10-bit node ID
+ * and a 12-bit per-millisecond sequence, written as "BK" + 13 Crockford base32 characters.
+ * Time and sequence share one atomic word that only ever moves forward, so references are unique
+ * per node without locks (a full millisecond or a clock step back borrows the next millisecond),
+ * and unique across nodes as long as every node is given its own booking.node-id. Deployments
+ * with more than one node (booking.node-count) must set it; a single node defaults to 0.
+ */
+@Component
+public class BookingReferenceGenerator {
+
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final String PREFIX = "BK";
+    private static final int ENCODED_LENGTH = 13; // ceil(64 / 5)
+
+    private final long nodeId;
+    private final AtomicLong lastTick = new AtomicLong();
+
+    public BookingReferenceGenerator(@Value("${booking.node-id:-1}") long configuredNodeId,
+                                     @Value("${booking.node-count:1}") int nodeCount) {
+        if (configuredNodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("booking.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        if (configuredNodeId < 0 && nodeCount > 1) {
+            // A derived ID could repeat on another node, and with it every reference issued in the same millisecond
+            throw new IllegalStateException("booking.node-id must be set on each of the " + nodeCount + " nodes");
+        }
+        this.nodeId = configuredNodeId >= 0 ? configuredNodeId : 0L;
+    }
+
+    /**
+     * Next booking reference, e.g. BK01HV3K8Q2W0A1
+     */
+    public String next() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        long tick = lastTick.updateAndGet(previous -> Math.max(now << SEQUENCE_BITS, previous + 1));
+        long millis = tick >>> SEQUENCE_BITS;
+        long id = (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (tick & SEQUENCE_MASK);
+        return encode(id);
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    private static String encode(long id) {
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
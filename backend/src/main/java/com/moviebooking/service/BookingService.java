@@ -2,7 +2,6 @@ package com.moviebooking.service;
 
 import com.moviebooking.dto.*;
 import com.moviebooking.entity.Booking;
-import com.moviebooking.entity.Seat;
 import com.moviebooking.entity.Show;
 import com.moviebooking.entity.User;
 import com.moviebooking.repository.BookingRepository;
@@ -15,9 +14,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.TreeMap;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +28,14 @@ public class BookingService {
     private final SeatRepository seatRepository;
     private final UserRepository userRepository;
     private final SeatService seatService;
+    private final SeatInventory seatInventory;
+    private final ShowService showService;
+    private final PricingEngine pricingEngine;
+    private final PromoCodeService promoCodeService;
+    private final QuoteSigner quoteSigner;
+    private final BookingReferenceGenerator bookingReferenceGenerator;
+    private final StatisticsAggregator statisticsAggregator;
+    private final BookingTimeSeries bookingTimeSeries;
 
     /**
      * Create a booking with payment
@@ -38,30 +46,165 @@ public class BookingService {
             Long userId, 
             PaymentResponse paymentResponse) {
         
-        // Get user
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // The hold token carries the show and seats, and must have been issued to this user
+        SeatHold hold = seatService.getHold(request.getHoldId(), userId);
 
-        // Get show
-        Show show = showRepository.findById(request.getShowId())
-                .orElseThrow(() -> new RuntimeException("Show not found"));
+        // Reject stale holds from memory before touching the database
+        if (!seatInventory.areHeld(hold.showId(), hold.seatIds())) {
+            throw new RuntimeException("Some seats are no longer reserved");
+        }
 
-        // Get seats
-        List<Seat> seats = seatRepository.findByIdInAndShowId(request.getSeatIds(), request.getShowId());
-        
-        if (seats.size() != request.getSeatIds().size()) {
+        BookingResponse booking = book(userId, hold, request.getPromoCode(), request.getQuoteToken(),
+                request.getSpecialRequests(), paymentResponse);
+
+        // The charge was for the total priced before payment; never book the hold for a different one
+        if (booking.getTotalAmount().compareTo(paymentResponse.getAmount()) != 0) {
+            throw new RuntimeException("Booking total changed during checkout");
+        }
+        return booking;
+    }
+
+    /**
+     * Total a hold will be charged, priced exactly as createBookingWithPayment books it
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal priceBooking(BookingCreateRequest request, Long userId) {
+        SeatHold hold = seatService.getHold(request.getHoldId(), userId);
+        if (!seatInventory.areHeld(hold.showId(), hold.seatIds())) {
+            throw new RuntimeException("Some seats are no longer reserved");
+        }
+        return PriceTable.toRupees(price(hold, request.getPromoCode(), request.getQuoteToken()));
+    }
+
+    /**
+     * Book several shows paid for with one payment, all or nothing.
+     * Seat rows are locked show by show in show id order, and by seat id within a show, so
+     * concurrent carts sharing shows always wait on each other in the same order instead of deadlocking.
+     */
+    @Transactional
+    public CartCheckoutResponse checkoutCart(
+            CartCheckoutRequest request,
+            Long userId,
+            PaymentResponse paymentResponse) {
+
+        // Resolve every item first; a stale hold fails the cart before any row is locked
+        TreeMap<Long, CartLine> lines = resolveCart(request, userId);
+
+        for (CartLine line : lines.values()) {
+            if (seatRepository.lockSeats(line.hold().seatIds(), line.showId()).size() != line.hold().seatIds().size()) {
+                throw new RuntimeException("Some seats not found");
+            }
+        }
+
+        List<BookingResponse> bookings = new ArrayList<>();
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (CartLine line : lines.values()) {
+            CartItemRequest item = line.item();
+            BookingResponse booking = book(userId, line.hold(), item.getPromoCode(), item.getQuoteToken(), request.getSpecialRequests(), paymentResponse);
+            bookings.add(booking);
+            totalAmount = totalAmount.add(booking.getTotalAmount());
+        }
+
+        // The charge was for the total priced before payment; never book the cart for a different one
+        if (totalAmount.compareTo(paymentResponse.getAmount()) != 0) {
+            throw new RuntimeException("Cart total changed during checkout");
+        }
+
+        return CartCheckoutResponse.builder()
+                .bookings(bookings)
+                .totalAmount(totalAmount)
+                .paymentDetails(paymentResponse)
+                .build();
+    }
+
+    /**
+     * Total the cart will be charged, priced exactly as checkoutCart books it.
+     * Fails on anything checkoutCart would reject, so nothing is charged for a cart that cannot be booked.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal priceCart(CartCheckoutRequest request, Long userId) {
+        long totalPaise = 0L;
+        for (CartLine line : resolveCart(request, userId).values()) {
+            totalPaise += price(line.hold(), line.item().getPromoCode(), line.item().getQuoteToken());
+        }
+        return PriceTable.toRupees(totalPaise);
+    }
+
+    // Paise a hold is booked for: the signed quote if it covers the selection, else the show's price table
+    private long price(SeatHold hold, String promoCode, String quoteToken) {
+        QuoteSigner.SignedQuote quote = quoteSigner.verify(quoteToken);
+        if (quote != null && quote.covers(hold.showId(), hold.seatIds(), promoCode)) {
+            return quote.totalPaise();
+        }
+        PromoTerms promo = null;
+        if (promoCode != null && !promoCode.isBlank()) {
+            promo = promoCodeService.lookup(promoCode);
+            if (promo == null) {
+                throw new RuntimeException("Promo code " + promoCode + " is not valid");
+            }
+        }
+        Show show = showRepository.findById(hold.showId())
+                .orElseThrow(() -> new RuntimeException("Show not found"));
+        long total = pricingEngine.forShow(hold.showId(), show.getPrice()).total(hold.seatIds(), promo);
+        if (total < 0) {
             throw new RuntimeException("Some seats not found");
         }
+        return total;
+    }
 
-        // Verify all seats are available and blocked (reserved)
-        for (Seat seat : seats) {
-            if (!seat.getIsAvailable() || !seat.getIsBlocked()) {
-                throw new RuntimeException("Seat " + seat.getSeatLabel() + " is no longer available");
+    // Items by show id, each backed by a live hold of this user
+    private TreeMap<Long, CartLine> resolveCart(CartCheckoutRequest request, Long userId) {
+        TreeMap<Long, CartLine> lines = new TreeMap<>();
+        for (CartItemRequest item : request.getItems()) {
+            SeatHold hold = seatService.getHold(item.getHoldId(), userId);
+            if (lines.put(hold.showId(), new CartLine(hold, item)) != null) {
+                throw new RuntimeException("A cart may contain each show only once");
+            }
+            if (!seatInventory.areHeld(hold.showId(), hold.seatIds())) {
+                throw new RuntimeException("Some seats are no longer reserved");
             }
         }
+        return lines;
+    }
+
+    private BookingResponse book(Long userId, SeatHold hold, String promoCode,
+                                 String quoteToken, String specialRequests, PaymentResponse paymentResponse) {
+        Long showId = hold.showId();
+        List<Long> seatIds = hold.seatIds();
+
+        // A quote signed by /booking/summary for exactly this selection is charged as-is
+        QuoteSigner.SignedQuote quote = quoteSigner.verify(quoteToken);
+        boolean quoted = quote != null && quote.covers(showId, seatIds, promoCode);
+
+        // The user is only needed as a foreign key once a quote vouches for the price;
+        // the show is loaded with its movie, venue and city in one query for the response
+        User user = quoted
+                ? userRepository.getReferenceById(userId)
+                : userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        Show show = showRepository.findByIdWithMovieAndVenue(showId)
+                .orElseThrow(() -> new RuntimeException("Show not found"));
+
+        // Seat details come from the in-memory layout instead of another seats query
+        List<SeatDTO> seats = seatInventory.describe(showId, seatIds, show.getPrice());
+        if (seats == null) {
+            throw new RuntimeException("Some seats not found");
+        }
 
-        // Calculate total amount
-        BigDecimal totalAmount = calculateTotalAmount(seats);
+        // A promo code is used up here and handed back if the booking rolls back
+        String bookingReference = bookingReferenceGenerator.next();
+        PromoTerms promo = promoCode != null && !promoCode.isBlank()
+                ? promoCodeService.redeem(promoCode, userId, bookingReference)
+                : null;
+
+        // Same compiled price table as the booking summary
+        long totalPaise = quoted
+                ? quote.totalPaise()
+                : pricingEngine.forShow(showId, show.getPrice()).total(seatIds, promo);
+        if (totalPaise < 0) {
+            // -1 means a seat is missing from the show's price table; never record it as an amount
+            throw new RuntimeException("Some seats not found");
+        }
+        BigDecimal totalAmount = PriceTable.toRupees(totalPaise);
 
         // Create booking
         Booking booking = Booking.builder()
@@ -71,57 +214,44 @@ public class BookingService {
                 .totalAmount(totalAmount)
                 .bookingStatus("CONFIRMED")
                 .paymentStatus("SUCCESS".equals(paymentResponse.getPaymentStatus()) ? "COMPLETED" : "PENDING")
-                .bookingReference(generateBookingReference())
+                .bookingReference(bookingReference)
                 .transactionId(paymentResponse.getTransactionId())
                 .paymentMethod(paymentResponse.getPaymentMethod())
                 .build();
 
-        // Save booking
-        booking = bookingRepository.save(booking);
-
-        // Add seats to booking
-        for (Seat seat : seats) {
-            booking.addSeat(seat);
+        // Add seats to booking (references only, the join rows need nothing else);
+        // held seats always have a state row, the join table points at those rows
+        List<Long> rowIds = seatRepository.findRowIds(showId, seatIds);
+        if (rowIds.size() != seatIds.size()) {
+            throw new RuntimeException("Some seats not found");
+        }
+        for (Long rowId : rowIds) {
+            booking.addSeat(seatRepository.getReferenceById(rowId));
         }
         booking = bookingRepository.save(booking);
+        statisticsAggregator.recordBooking(showId, booking.getBookingDate(), totalAmount,
+                "COMPLETED".equals(booking.getPaymentStatus()));
+        bookingTimeSeries.recordBooking(showId, seatIds.size(), totalPaise);
 
         // Mark seats as booked
-        seatService.bookSeats(request.getSeatIds());
+        seatService.bookSeats(hold);
+        seats.forEach(seat -> {
+            seat.setIsAvailable(false);
+            seat.setIsBlocked(false);
+        });
 
         // Update show available seats count
-        show.setAvailableSeats(show.getAvailableSeats() - seats.size());
-        showRepository.save(show);
+        showService.adjustAvailableSeats(showId, -seats.size());
 
         // Convert to response
-        return convertToBookingResponse(booking, seats, paymentResponse, request);
-    }
-
-    private BigDecimal calculateTotalAmount(List<Seat> seats) {
-        BigDecimal subtotal = seats.stream()
-                .map(seat -> seat.getPrice() != null ? seat.getPrice() : seat.getShow().getPrice())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Add convenience fee (2% of subtotal, minimum Rs. 20)
-        BigDecimal convenienceFee = subtotal.multiply(BigDecimal.valueOf(0.02));
-        if (convenienceFee.compareTo(BigDecimal.valueOf(20)) < 0) {
-            convenienceFee = BigDecimal.valueOf(20);
-        }
-
-        // Add taxes (18% GST)
-        BigDecimal taxes = subtotal.multiply(BigDecimal.valueOf(0.18));
-
-        return subtotal.add(convenienceFee).add(taxes);
-    }
-
-    private String generateBookingReference() {
-        return "MB" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+        return convertToBookingResponse(booking, seats, paymentResponse, specialRequests);
     }
 
     private String generateQRCode() {
         return "QR" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
 
-    private BookingResponse convertToBookingResponse(Booking booking, List<Seat> seats, PaymentResponse paymentResponse, BookingCreateRequest request) {
+    private BookingResponse convertToBookingResponse(Booking booking, List<SeatDTO> seatDTOs, PaymentResponse paymentResponse, String specialRequests) {
         // Convert show
         ShowDTO showDTO = ShowDTO.builder()
                 .id(booking.getShow().getId())
@@ -133,11 +263,6 @@ public class BookingService {
                 .price(booking.getShow().getPrice())
                 .build();
 
-        // Convert seats
-        List<SeatDTO> seatDTOs = seats.stream()
-                .map(this::convertToSeatDTO)
-                .collect(Collectors.toList());
-
         return BookingResponse.builder()
                 .id(booking.getId())
                 .bookingReference(booking.getBookingReference())
@@ -149,7 +274,7 @@ public class BookingService {
                 .bookingDate(booking.getBookingDate())
                 .qrCode(generateQRCode()) // Generate QR code for display
                 .paymentDetails(paymentResponse)
-                .specialRequests(request.getSpecialRequests()) // From request, not entity
+                .specialRequests(specialRequests) // From request, not entity
                 .canCancel(canCancelBooking(booking))
                 .cancellationDeadline(getCancellationDeadline(booking))
                 .build();
@@ -187,19 +312,6 @@ public class BookingService {
                 .build();
     }
 
-    private SeatDTO convertToSeatDTO(Seat seat) {
-        return SeatDTO.builder()
-                .id(seat.getId())
-                .seatRow(seat.getSeatRow())
-                .seatNumber(seat.getSeatNumber())
-                .seatType(seat.getSeatType())
-                .price(seat.getPrice() != null ? seat.getPrice() : seat.getShow().getPrice())
-                .isAvailable(seat.getIsAvailable())
-                .isBlocked(seat.getIsBlocked())
-                .displayName(seat.getSeatRow() + seat.getSeatNumber())
-                .build();
-    }
-
     private boolean canCancelBooking(Booking booking) {
         // Can cancel if show is more than 2 hours away
         LocalDateTime showDateTime = LocalDateTime.of(
@@ -217,4 +329,11 @@ public class BookingService {
         );
         return showDateTime.minusHours(2);
     }
-}
\ No newline at end of file
+
+    private record CartLine(SeatHold hold, CartItemRequest item) {
+
+        Long showId() {
+            return hold.showId();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.moviebooking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-minute booking activity held entirely in memory.
+ * <p>
+ * Every show, movie and city (plus the whole site) has a ring buffer of one-minute buckets
+ * covering booking.analytics.window-minutes; a bucket is reused once its minute falls out of
+ * the window, so a series never grows. The number of series per dimension is capped and series
+ * without activity inside the window are dropped, which keeps total memory bounded (a series
+ * costs 40 bytes per minute of window). Events are applied when their transaction commits.
+ * Seats and revenue are net of cancellations.
+ */
+@Slf4j
+@Component
+public class BookingTimeSeries {
+
+    public static final String ALL = "all";
+    public static final String SHOW = "show";
+    public static final String MOVIE = "movie";
+    public static final String CITY = "city";
+
+    private static final int BOOKINGS = 0;
+    private static final int CANCELLATIONS = 1;
+    private static final int SEATS = 2;
+    private static final int REVENUE = 3;
+    private static final int METRICS = 4;
+
+    private final ShowDimensions showDimensions;
+    private final Map<String, Map<String, MinuteRing>> series = new ConcurrentHashMap<>();
+
+    @Value("${booking.analytics.window-minutes:360}")
+    private int windowMinutes;
+
+    @Value("${booking.analytics.max-series-per-dimension:1000}")
+    private int maxSeriesPerDimension;
+
+    public BookingTimeSeries(ShowDimensions showDimensions) {
+        this.showDimensions = showDimensions;
+        for (String dimension : new String[] {ALL, SHOW, MOVIE, CITY}) {
+            series.put(dimension, new ConcurrentHashMap<>());
+        }
+    }
+
+    public void recordBooking(Long showId, int seats, long amountPaise) {
+        record(showId, 1, 0, seats, amountPaise);
+    }
+
+    public void recordCancellation(Long showId, int seats, long amountPaise) {
+        recordCancellations(showId, 1, seats, amountPaise);
+    }
+
+    public void recordCancellations(Long showId, int bookings, int seats, long amountPaise) {
+        record(showId, 0, bookings, -seats, -amountPaise);
+    }
+
+    /**
+     * Buckets of the last minutes of a series, summed into steps of stepMinutes, oldest first.
+     * Returns null if the dimension or key has no series.
+     */
+    public Window query(String dimension, String key, int minutes, int stepMinutes) {
+        Map<String, MinuteRing> rings = series.get(dimension);
+        MinuteRing ring = rings != null ? rings.get(ALL.equals(dimension) ? ALL : key) : null;
+        if (ring == null) {
+            return null;
+        }
+        int span = Math.max(1, Math.min(minutes, windowMinutes));
+        int step = Math.max(1, Math.min(stepMinutes, span));
+        int points = (span + step - 1) / step;
+        long toMinute = currentMinute();
+        long fromMinute = toMinute - (long) points * step + 1;
+
+        long[][] values = new long[METRICS][points];
+        ring.sumInto(fromMinute, toMinute, step, values);
+        return new Window(fromMinute * 60_000L, step, values[BOOKINGS], values[CANCELLATIONS],
+                values[SEATS], values[REVENUE]);
+    }
+
+    /**
+     * Drop series that had no activity inside the window
+     */
+    @Scheduled(fixedDelayString = "${booking.analytics.sweep-interval-ms:300000}")
+    public void sweep() {
+        long oldest = currentMinute() - windowMinutes;
+        int dropped = 0;
+        for (Map<String, MinuteRing> rings : series.values()) {
+            int before = rings.size();
+            rings.values().removeIf(ring -> ring.lastMinute() <= oldest);
+            dropped += before - rings.size();
+        }
+        if (dropped > 0) {
+            log.debug("Dropped {} idle booking time series", dropped);
+        }
+    }
+
+    private void record(Long showId, long bookings, long cancellations, long seats, long revenuePaise) {
+        ShowDimensions.Dimensions dimensions = showDimensions.of(showId);
+        afterCommit(() -> {
+            long minute = currentMinute();
+            ring(ALL, ALL).add(minute, bookings, cancellations, seats, revenuePaise);
+            ring(SHOW, showId.toString()).add(minute, bookings, cancellations, seats, revenuePaise);
+            if (dimensions.movieId() != null) {
+                ring(MOVIE, dimensions.movieId().toString()).add(minute, bookings, cancellations, seats, revenuePaise);
+            }
+            ring(CITY, dimensions.city()).add(minute, bookings, cancellations, seats, revenuePaise);
+        });
+    }
+
+    private MinuteRing ring(String dimension, String key) {
+        Map<String, MinuteRing> rings = series.get(dimension);
+        MinuteRing ring = rings.get(key);
+        if (ring == null) {
+            if (rings.size() >= maxSeriesPerDimension) {
+                evictLeastRecent(rings);
+            }
+            ring = rings.computeIfAbsent(key, k -> new MinuteRing(windowMinutes));
+        }
+        return ring;
+    }
+
+    private static void evictLeastRecent(Map<String, MinuteRing> rings) {
+        rings.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().lastMinute()))
+                .ifPresent(entry -> rings.remove(entry.getKey(), entry.getValue()));
+    }
+
+    private static long currentMinute() {
+        return System.currentTimeMillis() / 60_000L;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Downsampled points of one series; point i covers stepMinutes starting at
+     * fromEpochMillis + i * stepMinutes minutes
+     */
+    public record Window(long fromEpochMillis, int stepMinutes, long[] bookings, long[] cancellations,
+                         long[] seats, long[] revenuePaise) {
+    }
+
+    /**
+     * Fixed number of one-minute buckets; bucket i holds the minute stamped in minutes[i]
+     */
+    private static final class MinuteRing {
+        private final long[] minutes;
+        private final long[][] values;
+        private volatile long lastMinute;
+
+        private MinuteRing(int capacity) {
+            this.minutes = new long[capacity];
+            this.values = new long[METRICS][capacity];
+            Arrays.fill(minutes, -1L);
+        }
+
+        private synchronized void add(long minute, long bookings, long cancellations, long seats, long revenuePaise) {
+            int slot = (int) (minute % minutes.length);
+            if (minutes[slot] != minute) {
+                // The bucket still holds a minute that has left the window
+                minutes[slot] = minute;
+                for (long[] metric : values) {
+                    metric[slot] = 0L;
+                }
+            }
+            values[BOOKINGS][slot] += bookings;
+            values[CANCELLATIONS][slot] += cancellations;
+            values[SEATS][slot] += seats;
+            values[REVENUE][slot] += revenuePaise;
+            lastMinute = minute;
+        }
+
+        private synchronized void sumInto(long fromMinute, long toMinute, int step, long[][] into) {
+            for (long minute = fromMinute; minute <= toMinute; minute++) {
+                int slot = (int) (minute % minutes.length);
+                if (minutes[slot] != minute) {
+                    continue;
+                }
+                int point = (int) ((minute - fromMinute) / step);
+                for (int metric = 0; metric < METRICS; metric++) {
+                    into[metric][point] += values[metric][slot];
+                }
+            }
+        }
+
+        private long lastMinute() {
+            return lastMinute;
+        }
+    }
+}
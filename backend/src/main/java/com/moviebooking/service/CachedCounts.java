@@ -0,0 +1,35 @@
+package com.moviebooking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Row counts that may be a little stale.
+ * Keyset pages do not need a total; when a client asks for one anyway, it is counted at most
+ * once per booking.pagination.count-cache-ms per key instead of once per page.
+ */
+@Component
+public class CachedCounts {
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    @Value("${booking.pagination.count-cache-ms:30000}")
+    private long ttlMillis;
+
+    public long get(String key, LongSupplier counter) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+        if (cached == null || cached.expiresAtMillis() <= now) {
+            cached = new CachedCount(counter.getAsLong(), now + ttlMillis);
+            counts.put(key, cached);
+        }
+        return cached.value();
+    }
+
+    private record CachedCount(long value, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,126 @@
+package com.moviebooking.service;
+
+import com.moviebooking.repository.SeatRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases seat holds when they expire.
+ * Every hold is queued with its deadline at hold time; the drain only touches
+ * holds that are actually due and releases them with batched UPDATE ... WHERE id IN (...).
+ */
+@Slf4j
+@Component
+public class HoldExpiryScheduler {
+
+    private final SeatRepository seatRepository;
+    private final SeatInventory seatInventory;
+    private final TransactionTemplate transactionTemplate;
+    private final DelayQueue<PendingExpiry> pending = new DelayQueue<>();
+
+    @Value("${booking.hold.expiry-batch-size:500}")
+    private int batchSize;
+
+    public HoldExpiryScheduler(SeatRepository seatRepository,
+                               SeatInventory seatInventory,
+                               PlatformTransactionManager transactionManager) {
+        this.seatRepository = seatRepository;
+        this.seatInventory = seatInventory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Queue a hold for release at the given time
+     */
+    public void schedule(Long showId, Collection<Long> seatIds, LocalDateTime holdUntil) {
+        pending.add(new PendingExpiry(showId, List.copyOf(seatIds), ShowSeatMap.toEpochMillis(holdUntil)));
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Release everything that is due
+     */
+    @Scheduled(fixedDelayString = "${booking.hold.expiry-tick-ms:1000}")
+    public void releaseDueHolds() {
+        List<PendingExpiry> due = new ArrayList<>();
+        pending.drainTo(due);
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // Seat ids are only unique within a show, so releases are batched per show
+        Map<Long, List<Long>> releasedByShow = new HashMap<>();
+        for (PendingExpiry expiry : due) {
+            List<Long> expired = seatInventory.forShow(expiry.showId())
+                    .expireHolds(expiry.seatIds(), expiry.expiresAtMillis());
+            if (!expired.isEmpty()) {
+                releasedByShow.computeIfAbsent(expiry.showId(), showId -> new ArrayList<>()).addAll(expired);
+            }
+        }
+        if (releasedByShow.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int releasedCount = 0;
+        int updated = 0;
+        for (Map.Entry<Long, List<Long>> entry : releasedByShow.entrySet()) {
+            Long showId = entry.getKey();
+            List<Long> released = entry.getValue();
+            releasedCount += released.size();
+            for (int from = 0; from < released.size(); from += batchSize) {
+                List<Long> batch = released.subList(from, Math.min(from + batchSize, released.size()));
+                Integer count = transactionTemplate.execute(status -> seatRepository.releaseExpiredHolds(batch, showId, now));
+                updated += count != null ? count : 0;
+            }
+        }
+        log.debug("Released {} expired seat holds ({} rows updated)", releasedCount, updated);
+    }
+
+    /**
+     * Clear holds that expired while the application was down and queue the ones still running
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer cleared = transactionTemplate.execute(status -> seatRepository.releaseAllExpiredHolds(now));
+
+        Map<Long, Map<LocalDateTime, List<Long>>> active = new HashMap<>();
+        for (Object[] hold : seatRepository.findActiveHolds(now)) {
+            active.computeIfAbsent((Long) hold[1], showId -> new HashMap<>())
+                    .computeIfAbsent((LocalDateTime) hold[2], until -> new ArrayList<>())
+                    .add((Long) hold[0]);
+        }
+        active.forEach((showId, holds) -> holds.forEach((until, seatIds) -> schedule(showId, seatIds, until)));
+
+        log.info("Seat hold recovery: cleared {} expired holds, queued {} active holds", cleared, pending.size());
+    }
+
+    private record PendingExpiry(Long showId, List<Long> seatIds, long expiresAtMillis) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAtMillis, ((PendingExpiry) other).expiresAtMillis);
+        }
+    }
+}
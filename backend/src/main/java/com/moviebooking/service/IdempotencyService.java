@@ -0,0 +1,261 @@
+package com.moviebooking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moviebooking.dto.MessageResponse;
+import com.moviebooking.entity.IdempotencyRecord;
+import com.moviebooking.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes retried requests carrying an Idempotency-Key safe to repeat.
+ * The first request claims the key with a PENDING row (so other nodes answer 409 instead of
+ * re-running it) and its response is stored with the row and in a bounded in-memory cache,
+ * each entry carrying the row's expiry so the cache never outlives the retention.
+ * Duplicates arriving on the same node while it runs wait on its result; later retries are
+ * answered from the cache or the table. Server errors are not kept, so those stay retryable.
+ */
+@Slf4j
+@Component
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, StoredResponse> completed;
+
+    @Value("${booking.idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${booking.idempotency.pending-timeout-ms:120000}")
+    private long pendingTimeoutMs;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${booking.idempotency.cache-size:10000}") int cacheSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.completed = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Run work at most once per (operation, user, key); without a key the work simply runs
+     */
+    public CompletableFuture<ResponseEntity<?>> execute(String key, Long userId, String operation, Object request,
+                                                        Supplier<CompletableFuture<ResponseEntity<?>>> work) {
+        if (key == null || key.isBlank()) {
+            return work.get();
+        }
+        if (key.length() > 100) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new MessageResponse(HEADER + " must be at most 100 characters")));
+        }
+
+        String scope = operation + ":" + userId + ":" + key;
+        String requestHash = hash(request);
+        StoredResponse cached = completed.get(scope);
+        if (cached != null) {
+            if (!cached.isExpired(LocalDateTime.now())) {
+                return CompletableFuture.completedFuture(replay(cached, requestHash));
+            }
+            // Past retention the key is free again, exactly as once its row is purged
+            completed.remove(scope, cached);
+        }
+
+        CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> original = inFlight.putIfAbsent(scope, result);
+        if (original != null) {
+            // Same key already running here: wait for its outcome instead of executing again
+            return original.thenApply(stored -> replay(stored, requestHash));
+        }
+
+        try {
+            StoredResponse earlier = claim(scope, key, userId, operation, requestHash);
+            if (earlier != null) {
+                finish(scope, result, earlier, earlier.isFinal());
+                return CompletableFuture.completedFuture(replay(earlier, requestHash));
+            }
+        } catch (RuntimeException e) {
+            inFlight.remove(scope, result);
+            result.completeExceptionally(e);
+            throw e;
+        }
+
+        CompletableFuture<ResponseEntity<?>> response;
+        try {
+            response = work.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return response.handle((entity, error) -> {
+            ResponseEntity<?> outcome = entity != null ? entity : ResponseEntity.internalServerError()
+                    .body(new MessageResponse("Request failed: " + (error != null ? error.getMessage() : "no response")));
+            try {
+                StoredResponse stored = capture(outcome, requestHash);
+                boolean kept = stored != null && stored.status() < 500 && store(scope, stored);
+                if (!kept) {
+                    transactionTemplate.executeWithoutResult(status -> repository.deleteByScope(scope));
+                    if (stored == null) {
+                        stored = new StoredResponse(outcome.getStatusCode().value(), null, requestHash, null);
+                    }
+                }
+                finish(scope, result, stored, kept);
+            } catch (RuntimeException e) {
+                // Never leave the key in flight here, or later requests with it would wait forever;
+                // an unreleased PENDING row lapses after booking.idempotency.pending-timeout-ms
+                log.warn("Could not record idempotent outcome for {}", scope, e);
+                inFlight.remove(scope, result);
+                result.completeExceptionally(e);
+            }
+            return outcome;
+        });
+    }
+
+    /**
+     * Drop records past their retention
+     */
+    @Scheduled(fixedDelayString = "${booking.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Integer removed = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        if (removed != null && removed > 0) {
+            log.debug("Purged {} expired idempotency records", removed);
+        }
+    }
+
+    /**
+     * Claim the key in the table; returns the response to answer with if the key was already used
+     */
+    private StoredResponse claim(String scope, String key, Long userId, String operation, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> existing = repository.findByScope(scope);
+        if (existing.isPresent()) {
+            IdempotencyRecord record = existing.get();
+            if (record.getExpiresAt().isAfter(now)) {
+                if ("COMPLETED".equals(record.getStatus())) {
+                    return new StoredResponse(record.getResponseStatus(), record.getResponseBody(), record.getRequestHash(),
+                            record.getExpiresAt());
+                }
+                return inProgress(requestHash);
+            }
+            // Expired, or a PENDING claim abandoned by a node that went away
+            transactionTemplate.executeWithoutResult(status -> repository.deleteByScope(scope));
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.saveAndFlush(IdempotencyRecord.builder()
+                    .scope(scope)
+                    .idempotencyKey(key)
+                    .userId(userId)
+                    .operation(operation)
+                    .requestHash(requestHash)
+                    .status("PENDING")
+                    .expiresAt(now.plus(Duration.ofMillis(pendingTimeoutMs)))
+                    .build()));
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            // Another node claimed the key between our read and insert
+            return inProgress(requestHash);
+        }
+    }
+
+    private boolean store(String scope, StoredResponse stored) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.findByScope(scope).ifPresent(record -> {
+                record.setStatus("COMPLETED");
+                record.setResponseStatus(stored.status());
+                record.setResponseBody(stored.body());
+                record.setExpiresAt(stored.expiresAt());
+            }));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not persist idempotent response for {}", scope, e);
+            return false;
+        }
+    }
+
+    private void finish(String scope, CompletableFuture<StoredResponse> result, StoredResponse stored, boolean cache) {
+        if (cache) {
+            completed.put(scope, stored);
+        }
+        inFlight.remove(scope, result);
+        result.complete(stored);
+    }
+
+    private StoredResponse capture(ResponseEntity<?> response, String requestHash) {
+        try {
+            String body = response.getBody() != null ? objectMapper.writeValueAsString(response.getBody()) : null;
+            return new StoredResponse(response.getStatusCode().value(), body, requestHash,
+                    LocalDateTime.now().plusHours(retentionHours));
+        } catch (JsonProcessingException e) {
+            log.warn("Response is not serializable, it will not be replayed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return ResponseEntity.unprocessableEntity()
+                    .body(new MessageResponse(HEADER + " was already used for a different request"));
+        }
+        if (stored.status() == HttpStatus.CONFLICT.value() && stored.body() == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new MessageResponse("A request with this " + HEADER + " is still being processed"));
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status()).header("Idempotent-Replayed", "true");
+        return stored.body() != null
+                ? builder.contentType(MediaType.APPLICATION_JSON).body(stored.body())
+                : builder.build();
+    }
+
+    private StoredResponse inProgress(String requestHash) {
+        return new StoredResponse(HttpStatus.CONFLICT.value(), null, requestHash, null);
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private record StoredResponse(int status, String body, String requestHash, LocalDateTime expiresAt) {
+
+        boolean isFinal() {
+            return status != HttpStatus.CONFLICT.value() || body != null;
+        }
+
+        boolean isExpired(LocalDateTime now) {
+            return expiresAt == null || !expiresAt.isAfter(now);
+        }
+    }
+}
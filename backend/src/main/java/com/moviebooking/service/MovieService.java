@@ -22,6 +22,7 @@ import java.util.List;
 public class MovieService {
 
     private final MovieRepository movieRepository;
+    private final StatisticsAggregator statisticsAggregator;
 
     public MovieResponse createMovie(MovieCreateRequest request) {
         log.info("Creating new movie with title: {}", request.getTitle());
@@ -44,6 +45,7 @@ public class MovieService {
                 .build();
 
         Movie savedMovie = movieRepository.save(movie);
+        statisticsAggregator.recordMovieCreated();
         log.info("Successfully created movie with ID: {}", savedMovie.getId());
         
         return mapToResponse(savedMovie);
@@ -0,0 +1,71 @@
+package com.moviebooking.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in its own transaction and retries it when an optimistic
+ * version check fails, backing off exponentially with full jitter.
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${booking.optimistic-retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${booking.optimistic-retry.base-backoff-ms:10}")
+    private long baseBackoffMs;
+
+    @Value("${booking.optimistic-retry.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Execute work in a fresh transaction per attempt; the operation name tags the metrics
+     */
+    public <T> T execute(String operation, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = transactionTemplate.execute(status -> work.get());
+                meterRegistry.summary("booking.optimistic.attempts", "operation", operation).record(attempt);
+                return result;
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("booking.optimistic.exhausted", "operation", operation).increment();
+                    log.warn("Giving up on {} after {} optimistic lock failures", operation, attempt);
+                    throw e;
+                }
+                meterRegistry.counter("booking.optimistic.retries", "operation", operation).increment();
+                log.debug("Optimistic lock failure on {} (attempt {}), retrying", operation, attempt);
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.moviebooking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation tokens for keyset pagination.
+ * A token carries the sort key of the last row of a page, so the next page is read with a
+ * seek predicate on an index instead of skipping rows with OFFSET.
+ */
+public final class PageCursor {
+
+    private static final String VERSION = "1";
+
+    private PageCursor() {
+    }
+
+    public static String encode(String... keys) {
+        String payload = VERSION + "|" + String.join("|", keys);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The sort keys held by a token
+     * @throws IllegalArgumentException if the token is malformed or holds a different number of keys
+     */
+    public static String[] decode(String token, int keyCount) {
+        String payload;
+        try {
+            payload = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String[] fields = payload.split("\\|", -1);
+        if (fields.length != keyCount + 1 || !VERSION.equals(fields[0])) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String[] keys = new String[keyCount];
+        System.arraycopy(fields, 1, keys, 0, keyCount);
+        return keys;
+    }
+}
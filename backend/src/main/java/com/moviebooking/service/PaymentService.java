@@ -2,89 +2,166 @@ package com.moviebooking.service;
 
 import com.moviebooking.dto.PaymentRequest;
 import com.moviebooking.dto.PaymentResponse;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.*;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class PaymentService {
 
+    // Failures worth retrying with the same Idempotency-Key
+    public static final String BUSY = "Payment service is busy, please retry";
+    public static final String TIMED_OUT = "Payment provider timed out";
+
+    private static final String INSERT_UNBOOKED_REFUND =
+            "INSERT INTO refunds (user_id, amount, transaction_id, status, reason, created_at, updated_at) " +
+            "VALUES (?, ?, ?, 'PENDING', ?, ?, ?)";
+
+    private final AsyncTaskExecutor paymentExecutor;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${booking.payment.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${booking.payment.gateway-latency-ms:1000}")
+    private long gatewayLatencyMs;
+
+    public PaymentService(@Qualifier("paymentExecutor") AsyncTaskExecutor paymentExecutor,
+                          JdbcTemplate jdbcTemplate) {
+        this.paymentExecutor = paymentExecutor;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
     /**
      * Process payment - This is a mock implementation
      * In real implementation, this would integrate with payment gateways like Razorpay, Stripe, etc.
+     * The gateway call runs on the payment executor and the future fails over to a FAILED
+     * response once it exceeds the per-call timeout, so no request thread waits on the provider.
+     * When the executor is saturated the call is rejected straight away.
      */
-    public PaymentResponse processPayment(PaymentRequest paymentRequest) {
+    public CompletableFuture<PaymentResponse> processPayment(PaymentRequest paymentRequest) {
+        // Validate payment details
+        if (!validatePaymentDetails(paymentRequest)) {
+            return CompletableFuture.completedFuture(failedPayment(paymentRequest, "Invalid payment details"));
+        }
+
+        // Submitted directly so a full pool rejects here and the caller fails fast
+        CompletableFuture<PaymentResponse> result = new CompletableFuture<>();
         try {
-            // Validate payment details
-            if (!validatePaymentDetails(paymentRequest)) {
-                return PaymentResponse.builder()
-                        .paymentMethod(paymentRequest.getPaymentMethod())
-                        .amount(paymentRequest.getAmount())
-                        .paymentStatus("FAILED")
-                        .failureReason("Invalid payment details")
-                        .paymentDate(LocalDateTime.now())
-                        .build();
-            }
-
-            // Mock payment processing delay
-            Thread.sleep(1000);
-
-            // Generate mock transaction IDs
-            String transactionId = "TXN_" + System.currentTimeMillis();
-            String gatewayOrderId = "ORDER_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-            String gatewayPaymentId = "PAY_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-
-            // For demo purposes, simulate payment success 90% of the time
-            boolean paymentSuccess = Math.random() < 0.9;
-
-            if (paymentSuccess) {
-                return PaymentResponse.builder()
-                        .paymentMethod(paymentRequest.getPaymentMethod())
-                        .amount(paymentRequest.getAmount())
-                        .paymentStatus("SUCCESS")
-                        .transactionId(transactionId)
-                        .gatewayOrderId(gatewayOrderId)
-                        .gatewayPaymentId(gatewayPaymentId)
-                        .paymentDate(LocalDateTime.now())
-                        .receipt("Receipt: " + transactionId)
-                        .build();
-            } else {
-                return PaymentResponse.builder()
-                        .paymentMethod(paymentRequest.getPaymentMethod())
-                        .amount(paymentRequest.getAmount())
-                        .paymentStatus("FAILED")
-                        .transactionId(transactionId)
-                        .gatewayOrderId(gatewayOrderId)
-                        .failureReason("Payment declined by bank")
-                        .paymentDate(LocalDateTime.now())
-                        .build();
-            }
-
-        } catch (Exception e) {
-            return PaymentResponse.builder()
-                    .paymentMethod(paymentRequest.getPaymentMethod())
-                    .amount(paymentRequest.getAmount())
-                    .paymentStatus("FAILED")
-                    .failureReason("Payment processing error: " + e.getMessage())
-                    .paymentDate(LocalDateTime.now())
-                    .build();
+            paymentExecutor.execute(() -> callGateway(paymentRequest, result));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(failedPayment(paymentRequest, BUSY));
         }
+        return result
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TimeoutException) {
+                        log.warn("Payment provider did not answer within {} ms", timeoutMs);
+                        return failedPayment(paymentRequest, TIMED_OUT);
+                    }
+                    return failedPayment(paymentRequest, "Payment processing error: " + cause.getMessage());
+                });
+    }
+
+    /**
+     * Queue a refund for a successful charge that never became a booking
+     */
+    public void refundUnbooked(PaymentResponse paymentResponse, Long userId, String reason) {
+        log.warn("Charge {} of {} for user {} was not booked ({}), queueing a refund",
+                paymentResponse.getTransactionId(), paymentResponse.getAmount(), userId, reason);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String note = reason == null ? "Booking failed" : reason.length() > 500 ? reason.substring(0, 500) : reason;
+        jdbcTemplate.update(INSERT_UNBOOKED_REFUND, userId, paymentResponse.getAmount(),
+                paymentResponse.getTransactionId(), note, now, now);
     }
 
     /**
      * Process payment for an existing booking
      */
-    public PaymentResponse processPaymentForBooking(Long bookingId, PaymentRequest paymentRequest, Long userId) {
+    public CompletableFuture<PaymentResponse> processPaymentForBooking(Long bookingId, PaymentRequest paymentRequest, Long userId) {
         // Add booking ID to the payment request for tracking
-        PaymentResponse response = processPayment(paymentRequest);
-        
         // In a real implementation, you would update the booking payment status here
         // bookingService.updatePaymentStatus(bookingId, response.getPaymentStatus(), response.getTransactionId());
-        
-        return response;
+        return processPayment(paymentRequest);
+    }
+
+    /**
+     * Runs on the payment executor. A call whose caller has already timed out is never charged.
+     */
+    private void callGateway(PaymentRequest paymentRequest, CompletableFuture<PaymentResponse> result) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            // Mock provider round trip
+            Thread.sleep(gatewayLatencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return;
+        }
+        if (result.isDone()) {
+            log.debug("Skipping charge, the payment call already timed out");
+            return;
+        }
+        try {
+            result.complete(charge(paymentRequest));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private PaymentResponse charge(PaymentRequest paymentRequest) {
+        // Generate mock transaction IDs
+        String transactionId = "TXN_" + System.currentTimeMillis();
+        String gatewayOrderId = "ORDER_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        String gatewayPaymentId = "PAY_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+
+        // For demo purposes, simulate payment success 90% of the time
+        boolean paymentSuccess = Math.random() < 0.9;
+
+        if (paymentSuccess) {
+            return PaymentResponse.builder()
+                    .paymentMethod(paymentRequest.getPaymentMethod())
+                    .amount(paymentRequest.getAmount())
+                    .paymentStatus("SUCCESS")
+                    .transactionId(transactionId)
+                    .gatewayOrderId(gatewayOrderId)
+                    .gatewayPaymentId(gatewayPaymentId)
+                    .paymentDate(LocalDateTime.now())
+                    .receipt("Receipt: " + transactionId)
+                    .build();
+        } else {
+            return PaymentResponse.builder()
+                    .paymentMethod(paymentRequest.getPaymentMethod())
+                    .amount(paymentRequest.getAmount())
+                    .paymentStatus("FAILED")
+                    .transactionId(transactionId)
+                    .gatewayOrderId(gatewayOrderId)
+                    .failureReason("Payment declined by bank")
+                    .paymentDate(LocalDateTime.now())
+                    .build();
+        }
+    }
+
+    private PaymentResponse failedPayment(PaymentRequest paymentRequest, String reason) {
+        return PaymentResponse.builder()
+                .paymentMethod(paymentRequest.getPaymentMethod())
+                .amount(paymentRequest.getAmount())
+                .paymentStatus("FAILED")
+                .failureReason(reason)
+                .paymentDate(LocalDateTime.now())
+                .build();
     }
 
     /**
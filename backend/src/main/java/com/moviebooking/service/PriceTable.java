@@ -0,0 +1,100 @@
+package com.moviebooking.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Seat prices of one show compiled into paise, indexed by seat-map slot, together
+ * with the pricing rules they were compiled against. Immutable; quoting only reads
+ * primitive arrays and does not allocate beyond the returned {@link Quote}.
+ */
+public final class PriceTable {
+
+    private final ShowSeatMap seatMap;
+    private final PricingRules rules;
+    private final long[] slotPaise;
+
+    private PriceTable(ShowSeatMap seatMap, PricingRules rules, long[] slotPaise) {
+        this.seatMap = seatMap;
+        this.rules = rules;
+        this.slotPaise = slotPaise;
+    }
+
+    /**
+     * Compile a show's seat prices, falling back to the show price for unpriced seats
+     */
+    public static PriceTable compile(ShowSeatMap seatMap, BigDecimal showPrice, PricingRules rules) {
+        long fallback = showPrice != null ? toPaise(showPrice) : 0L;
+        long[] slotPaise = new long[seatMap.getRowCount() * seatMap.getRowWidth()];
+        for (int slot = 0; slot < slotPaise.length; slot++) {
+            BigDecimal price = seatMap.priceAt(slot);
+            slotPaise[slot] = price != null ? toPaise(price) : fallback;
+        }
+        return new PriceTable(seatMap, rules, slotPaise);
+    }
+
+    /**
+     * Whether this table still reflects the given seat map and rules
+     */
+    public boolean isCompiledFrom(ShowSeatMap seatMap, PricingRules rules) {
+        return this.seatMap == seatMap && this.rules == rules;
+    }
+
+    /**
+     * Sum of the seats' prices in paise, or -1 if any seat does not belong to the show
+     */
+    public long subtotal(List<Long> seatIds) {
+        long subtotal = 0L;
+        for (int i = 0; i < seatIds.size(); i++) {
+            int slot = seatMap.slotOf(seatIds.get(i));
+            if (slot < 0) {
+                return -1L;
+            }
+            subtotal += slotPaise[slot];
+        }
+        return subtotal;
+    }
+
+    /**
+     * Amount payable in paise, or -1 if any seat does not belong to the show; promo may be null
+     */
+    public long total(List<Long> seatIds, PromoTerms promo) {
+        long subtotal = subtotal(seatIds);
+        if (subtotal < 0) {
+            return -1L;
+        }
+        long discount = promo != null ? promo.discount(subtotal) : 0L;
+        return subtotal + rules.fee(subtotal) + rules.tax(subtotal) - discount;
+    }
+
+    /**
+     * Full price breakdown, or null if any seat does not belong to the show; promo may be null
+     */
+    public Quote quote(List<Long> seatIds, PromoTerms promo) {
+        long subtotal = subtotal(seatIds);
+        if (subtotal < 0) {
+            return null;
+        }
+        long fee = rules.fee(subtotal);
+        long tax = rules.tax(subtotal);
+        long discount = promo != null ? promo.discount(subtotal) : 0L;
+        return new Quote(subtotal, fee, tax, discount, subtotal + fee + tax - discount,
+                promo != null ? promo.code() : null);
+    }
+
+    public static long toPaise(BigDecimal rupees) {
+        return rupees.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static BigDecimal toRupees(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    /**
+     * Price breakdown in paise; promoCode is only set when a promo was applied
+     */
+    public record Quote(long subtotalPaise, long feePaise, long taxPaise, long discountPaise,
+                        long totalPaise, String promoCode) {
+    }
+}
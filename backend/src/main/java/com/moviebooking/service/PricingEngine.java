@@ -0,0 +1,89 @@
+package com.moviebooking.service;
+
+import com.moviebooking.repository.PricingRuleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quotes seat selections from per-show {@link PriceTable}s.
+ * A table is compiled on first use and reused until the show's seat map is reloaded
+ * (which happens whenever the show is updated) or the pricing rules change.
+ * Rules are read from the pricing_rules table and refreshed periodically, so edits
+ * made on another node are picked up without a restart.
+ */
+@Slf4j
+@Component
+public class PricingEngine {
+
+    private final PricingRuleRepository pricingRuleRepository;
+    private final SeatInventory seatInventory;
+    private final Map<Long, PriceTable> tables = new ConcurrentHashMap<>();
+    private volatile PricingRules rules;
+
+    public PricingEngine(PricingRuleRepository pricingRuleRepository, SeatInventory seatInventory) {
+        this.pricingRuleRepository = pricingRuleRepository;
+        this.seatInventory = seatInventory;
+    }
+
+    /**
+     * Price table for a show, compiled against its current seat map and rules
+     */
+    public PriceTable forShow(Long showId, BigDecimal showPrice) {
+        ShowSeatMap seatMap = seatInventory.forShow(showId);
+        PricingRules current = currentRules();
+        PriceTable table = tables.get(showId);
+        if (table == null || !table.isCompiledFrom(seatMap, current)) {
+            table = PriceTable.compile(seatMap, showPrice, current);
+            tables.put(showId, table);
+        }
+        return table;
+    }
+
+    public PriceTable.Quote quote(Long showId, BigDecimal showPrice, List<Long> seatIds, PromoTerms promo) {
+        return forShow(showId, showPrice).quote(seatIds, promo);
+    }
+
+    /**
+     * Drop a show's compiled table; the next quote recompiles it
+     */
+    public void invalidate(Long showId) {
+        tables.remove(showId);
+    }
+
+    /**
+     * Re-read the rules now; every table compiled against older rules is recompiled on next use
+     */
+    public synchronized void reloadRules() {
+        PricingRules loaded = PricingRules.compile(pricingRuleRepository.findByIsActiveTrueOrderByIdAsc());
+        if (!loaded.equals(rules)) {
+            rules = loaded;
+            tables.clear();
+            log.info("Pricing rules reloaded");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${booking.pricing.rules-refresh-ms:60000}",
+               initialDelayString = "${booking.pricing.rules-refresh-ms:60000}")
+    public void refreshRules() {
+        reloadRules();
+    }
+
+    private PricingRules currentRules() {
+        PricingRules current = rules;
+        if (current == null) {
+            synchronized (this) {
+                if (rules == null) {
+                    reloadRules();
+                }
+                current = rules;
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,70 @@
+package com.moviebooking.service;
+
+import com.moviebooking.entity.PricingRule;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the active fee and tax rules, flattened into primitive arrays.
+ * Rates are in basis points and amounts in paise. Promo discounts are handled by {@link PromoCodeService}.
+ */
+@EqualsAndHashCode
+public final class PricingRules {
+
+    public static final String FEE = "FEE";
+    public static final String TAX = "TAX";
+
+    private final int[] feeBasisPoints;
+    private final long[] feeMinimumPaise;
+    private final int taxBasisPoints;
+
+    private PricingRules(int[] feeBasisPoints, long[] feeMinimumPaise, int taxBasisPoints) {
+        this.feeBasisPoints = feeBasisPoints;
+        this.feeMinimumPaise = feeMinimumPaise;
+        this.taxBasisPoints = taxBasisPoints;
+    }
+
+    /**
+     * Compile active rules; several TAX rules add up, each FEE rule is charged separately
+     */
+    public static PricingRules compile(List<PricingRule> rules) {
+        List<PricingRule> fees = new ArrayList<>();
+        int tax = 0;
+        for (PricingRule rule : rules) {
+            switch (rule.getRuleType()) {
+                case FEE -> fees.add(rule);
+                case TAX -> tax += rule.getBasisPoints();
+                default -> throw new IllegalArgumentException("Unknown pricing rule type: " + rule.getRuleType());
+            }
+        }
+
+        int[] feeBasisPoints = new int[fees.size()];
+        long[] feeMinimumPaise = new long[fees.size()];
+        for (int i = 0; i < fees.size(); i++) {
+            feeBasisPoints[i] = fees.get(i).getBasisPoints();
+            feeMinimumPaise[i] = fees.get(i).getMinimumPaise();
+        }
+        return new PricingRules(feeBasisPoints, feeMinimumPaise, tax);
+    }
+
+    /**
+     * Sum of all fees on a subtotal, each rounded half-up and raised to its minimum
+     */
+    public long fee(long subtotalPaise) {
+        long fee = 0L;
+        for (int i = 0; i < feeBasisPoints.length; i++) {
+            fee += Math.max(feeMinimumPaise[i], applyRate(subtotalPaise, feeBasisPoints[i]));
+        }
+        return fee;
+    }
+
+    public long tax(long subtotalPaise) {
+        return applyRate(subtotalPaise, taxBasisPoints);
+    }
+
+    static long applyRate(long paise, int basisPoints) {
+        return (paise * basisPoints + 5_000L) / 10_000L;
+    }
+}
@@ -0,0 +1,297 @@
+package com.moviebooking.service;
+
+import com.moviebooking.entity.PromoCode;
+import com.moviebooking.repository.PromoCodeRepository;
+import com.moviebooking.repository.PromoRedemptionRepository;
+import com.moviebooking.repository.PromoUserUsageRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Validates and redeems promo codes against an in-memory index of the active campaigns.
+ * <p>
+ * A capped code is never redeemed straight against its database row. Each node leases a block
+ * of the cap with a compare-and-set on promo_codes.reserved_count and hands permits out of a
+ * {@link StripedAllowance}, so the cap is enforced exactly while only one redemption per lease
+ * touches the row. Committed redemptions are counted in {@link LongAdder}s and added to the
+ * row in batches. Unused leases are returned when a code is deactivated or the node shuts down;
+ * a node that crashes strands at most one lease per code.
+ * The promo_redemptions row and the per-user claim on promo_user_usage are written inside the
+ * booking transaction, so per-user caps hold across nodes and a rolled-back booking takes its
+ * redemption and its use back with the rest of its writes.
+ */
+@Slf4j
+@Service
+public class PromoCodeService {
+
+    private static final String INSERT_REDEMPTION =
+            "INSERT INTO promo_redemptions (promo_code_id, user_id, booking_reference, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    // Insert-if-absent: a concurrent first use either finds the row or loses on the unique key
+    private static final String INSERT_USER_USAGE =
+            "INSERT INTO promo_user_usage (promo_code_id, user_id, used_count, created_at, updated_at) " +
+            "SELECT ?, ?, ?, ?, ? FROM DUAL WHERE NOT EXISTS " +
+            "(SELECT 1 FROM promo_user_usage u WHERE u.promo_code_id = ? AND u.user_id = ?)";
+
+    private static final int MAX_LEASE_ATTEMPTS = 5;
+
+    private final PromoCodeRepository promoCodeRepository;
+    private final PromoRedemptionRepository promoRedemptionRepository;
+    private final PromoUserUsageRepository promoUserUsageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, PromoCounter> counters = new ConcurrentHashMap<>();
+    private volatile Map<String, PromoTerms> index;
+
+    @Value("${booking.promo.lease-size:50}")
+    private int leaseSize;
+
+    @Value("${booking.promo.counter-stripes:8}")
+    private int counterStripes;
+
+    public PromoCodeService(PromoCodeRepository promoCodeRepository,
+                            PromoRedemptionRepository promoRedemptionRepository,
+                            PromoUserUsageRepository promoUserUsageRepository,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager) {
+        this.promoCodeRepository = promoCodeRepository;
+        this.promoRedemptionRepository = promoRedemptionRepository;
+        this.promoUserUsageRepository = promoUserUsageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Leases and counter flushes commit on their own, whatever transaction the caller is in
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Terms of a code that can currently be redeemed, or null; does not use up the code
+     */
+    public PromoTerms lookup(String code) {
+        if (code == null || code.isBlank()) {
+            return null;
+        }
+        PromoTerms terms = currentIndex().get(code.trim().toUpperCase());
+        if (terms == null || !terms.isValidAt(System.currentTimeMillis())) {
+            return null;
+        }
+        PromoCounter counter = counters.get(terms.id());
+        return counter != null && counter.exhausted ? null : terms;
+    }
+
+    /**
+     * Use up one redemption of a code for a booking.
+     * The redemption row is written in the surrounding transaction; a rollback hands the permit back.
+     */
+    public PromoTerms redeem(String code, Long userId, String bookingReference) {
+        PromoTerms terms = lookup(code);
+        if (terms == null) {
+            throw new RuntimeException("Promo code " + code + " is not valid");
+        }
+        PromoCounter counter = counters.computeIfAbsent(terms.id(), id -> new PromoCounter(counterStripes));
+
+        if (terms.maxPerUser() != null && !claimForUser(terms, userId)) {
+            throw new RuntimeException("Promo code " + terms.code() + " has already been used");
+        }
+        if (terms.maxRedemptions() != null && !takePermit(terms, counter)) {
+            throw new RuntimeException("Promo code " + terms.code() + " has been fully redeemed");
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(INSERT_REDEMPTION, terms.id(), userId, bookingReference, now, now);
+
+        afterCompletion(committed -> {
+            if (committed) {
+                counter.redeemed.increment();
+            } else if (terms.maxRedemptions() != null) {
+                // A permit is available again, so the code is no longer sold out on this node
+                counter.permits.add(1);
+                counter.exhausted = false;
+            }
+        });
+        return terms;
+    }
+
+    /**
+     * Write committed redemption counts to the database
+     */
+    @Scheduled(fixedDelayString = "${booking.promo.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<Long, Long> deltas = new HashMap<>();
+        counters.forEach((id, counter) -> {
+            long redeemed = counter.redeemed.sumThenReset();
+            if (redeemed > 0) {
+                deltas.put(id, redeemed);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach(promoCodeRepository::addRedemptions));
+            log.debug("Flushed promo redemption counts of {} codes", deltas.size());
+        } catch (RuntimeException e) {
+            // Keep the counts for the next flush
+            deltas.forEach((id, redeemed) -> counters.get(id).redeemed.add(redeemed));
+            log.warn("Could not flush promo redemption counts of {} codes, will retry", deltas.size(), e);
+        }
+    }
+
+    /**
+     * Re-read the active codes; unused leases of codes that are no longer active are returned
+     */
+    @Scheduled(fixedDelayString = "${booking.promo.refresh-interval-ms:30000}",
+               initialDelayString = "${booking.promo.refresh-interval-ms:30000}")
+    public synchronized void reload() {
+        Map<String, PromoTerms> loaded = new HashMap<>();
+        for (PromoCode promo : promoCodeRepository.findRedeemable(LocalDateTime.now())) {
+            loaded.put(promo.getCode().toUpperCase(), PromoTerms.of(promo));
+        }
+        index = Map.copyOf(loaded);
+
+        Set<Long> live = new HashSet<>();
+        loaded.values().forEach(terms -> live.add(terms.id()));
+        counters.forEach((id, counter) -> {
+            counter.exhausted = false;
+            if (!live.contains(id)) {
+                returnLease(id, counter);
+            }
+        });
+        log.debug("Loaded {} active promo codes", loaded.size());
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        flush();
+        counters.forEach(this::returnLease);
+    }
+
+    private Map<String, PromoTerms> currentIndex() {
+        Map<String, PromoTerms> current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    reload();
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    private boolean takePermit(PromoTerms terms, PromoCounter counter) {
+        if (counter.permits.tryTake()) {
+            return true;
+        }
+        // Only one thread per code goes to the database for a new lease
+        synchronized (counter) {
+            if (counter.permits.tryTake()) {
+                return true;
+            }
+            long leased = lease(terms.id());
+            if (leased == 0) {
+                counter.exhausted = true;
+                return false;
+            }
+            counter.permits.add(leased - 1);
+            return true;
+        }
+    }
+
+    private long lease(Long promoId) {
+        for (int attempt = 0; attempt < MAX_LEASE_ATTEMPTS; attempt++) {
+            Long leased = transactionTemplate.execute(status -> {
+                List<Object[]> reservation = promoCodeRepository.findReservation(promoId);
+                if (reservation.isEmpty() || reservation.get(0)[1] == null) {
+                    return 0L;
+                }
+                long reserved = (Long) reservation.get(0)[0];
+                long count = Math.min(leaseSize, (Long) reservation.get(0)[1] - reserved);
+                if (count <= 0) {
+                    return 0L;
+                }
+                return promoCodeRepository.reserve(promoId, reserved, count) == 1 ? count : -1L;
+            });
+            if (leased != null && leased >= 0) {
+                return leased;
+            }
+        }
+        log.warn("Could not lease redemptions for promo code {} after {} attempts", promoId, MAX_LEASE_ATTEMPTS);
+        return 0L;
+    }
+
+    private void returnLease(Long promoId, PromoCounter counter) {
+        long unused = counter.permits.drain();
+        if (unused > 0) {
+            transactionTemplate.executeWithoutResult(status -> promoCodeRepository.unreserve(promoId, unused));
+            log.debug("Returned {} unused redemptions of promo code {}", unused, promoId);
+        }
+    }
+
+    /**
+     * Take one of the user's uses in the caller's transaction; a failed claim leaves the row untouched
+     */
+    private boolean claimForUser(PromoTerms terms, Long userId) {
+        if (!promoUserUsageRepository.existsByPromoCodeIdAndUserId(terms.id(), userId)) {
+            createUserUsage(terms.id(), userId);
+        }
+        return promoUserUsageRepository.claim(terms.id(), userId, terms.maxPerUser()) == 1;
+    }
+
+    private void createUserUsage(Long promoId, Long userId) {
+        // Uses recorded before per-user rows existed still count
+        int used = promoRedemptionRepository.countByPromoCodeIdAndUserId(promoId, userId);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            // In the caller's transaction: a duplicate key fails only this statement, and the
+            // row it collided with is the one the guarded claim then increments
+            jdbcTemplate.update(INSERT_USER_USAGE, promoId, userId, used, now, now, promoId, userId);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Usage row of promo code {} for user {} was created concurrently", promoId, userId);
+        }
+    }
+
+    private void afterCompletion(Consumer<Boolean> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            action.accept(true);
+        }
+    }
+
+    /**
+     * Per-code runtime state, kept across index reloads
+     */
+    private static final class PromoCounter {
+        private final StripedAllowance permits;
+        private final LongAdder redeemed = new LongAdder();
+        private volatile boolean exhausted;
+
+        private PromoCounter(int stripes) {
+            this.permits = new StripedAllowance(stripes);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.moviebooking.service;
+
+import com.moviebooking.entity.PromoCode;
+
+/**
+ * Immutable discount terms of an active promo code; times are epoch milliseconds
+ */
+public record PromoTerms(Long id, String code, int basisPoints, long amountPaise, Long maxRedemptions,
+                         Integer maxPerUser, long validFromMillis, long validUntilMillis) {
+
+    public static PromoTerms of(PromoCode promo) {
+        return new PromoTerms(promo.getId(), promo.getCode(), promo.getBasisPoints(), promo.getAmountPaise(),
+                promo.getMaxRedemptions(), promo.getMaxPerUser(),
+                promo.getValidFrom() != null ? ShowSeatMap.toEpochMillis(promo.getValidFrom()) : Long.MIN_VALUE,
+                promo.getValidUntil() != null ? ShowSeatMap.toEpochMillis(promo.getValidUntil()) : Long.MAX_VALUE);
+    }
+
+    public boolean isValidAt(long nowMillis) {
+        return nowMillis >= validFromMillis && nowMillis < validUntilMillis;
+    }
+
+    /**
+     * Discount on a subtotal in paise, rounded half-up and never more than the subtotal
+     */
+    public long discount(long subtotalPaise) {
+        return Math.min(amountPaise + PricingRules.applyRate(subtotalPaise, basisPoints), subtotalPaise);
+    }
+}
@@ -0,0 +1,130 @@
+package com.moviebooking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Issues and verifies HMAC-SHA256 signed price quotes.
+ * A quote token is base64url(payload) + "." + base64url(signature), where the payload is
+ * showId|seatIds|totalPaise|expiresAtMillis|promoCode. Holding a valid token proves the
+ * amount was computed by a node sharing booking.quote.secret, so checkout can charge it
+ * without pricing the selection again.
+ */
+@Slf4j
+@Component
+public class QuoteSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    @Value("${booking.quote.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    public QuoteSigner(@Value("${booking.quote.secret:}") String secret) {
+        byte[] keyBytes;
+        if (secret.isBlank()) {
+            // Quotes then only verify on this node; elsewhere checkout falls back to repricing
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.warn("booking.quote.secret is not set, using a per-node random quote signing key");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+        });
+    }
+
+    /**
+     * Sign a quote that expires after the configured time to live
+     */
+    public SignedQuote sign(Long showId, List<Long> seatIds, long totalPaise, String promoCode) {
+        long expiresAtMillis = System.currentTimeMillis() + ttlSeconds * 1000L;
+        StringBuilder payload = new StringBuilder(64).append(showId).append('|');
+        for (int i = 0; i < seatIds.size(); i++) {
+            payload.append(i > 0 ? "," : "").append(seatIds.get(i));
+        }
+        payload.append('|').append(totalPaise).append('|').append(expiresAtMillis)
+                .append('|').append(promoCode != null ? promoCode : "");
+
+        byte[] body = payload.toString().getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String token = encoder.encodeToString(body) + "." + encoder.encodeToString(macs.get().doFinal(body));
+        return new SignedQuote(token, showId, List.copyOf(seatIds), totalPaise, promoCode, expiresAtMillis);
+    }
+
+    /**
+     * The quote behind a token, or null if the token is missing, malformed, forged or expired
+     */
+    public SignedQuote verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] body = decoder.decode(token.substring(0, dot));
+            byte[] signature = decoder.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, macs.get().doFinal(body))) {
+                return null;
+            }
+
+            String[] fields = new String(body, StandardCharsets.UTF_8).split("\\|", 5);
+            long expiresAtMillis = Long.parseLong(fields[3]);
+            if (expiresAtMillis <= System.currentTimeMillis()) {
+                return null;
+            }
+            List<Long> seatIds = new ArrayList<>();
+            for (String seatId : fields[1].split(",")) {
+                seatIds.add(Long.valueOf(seatId));
+            }
+            return new SignedQuote(token, Long.valueOf(fields[0]), List.copyOf(seatIds), Long.parseLong(fields[2]),
+                    fields[4].isEmpty() ? null : fields[4], expiresAtMillis);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A signed amount for a seat selection; promoCode is the applied code, if any
+     */
+    public record SignedQuote(String token, Long showId, List<Long> seatIds, long totalPaise,
+                              String promoCode, long expiresAtMillis) {
+
+        /**
+         * Whether this quote was issued for the given selection and promo code
+         */
+        public boolean covers(Long showId, List<Long> seatIds, String promoCode) {
+            String requested = promoCode != null && !promoCode.isBlank() ? promoCode.trim().toUpperCase() : null;
+            return this.showId.equals(showId)
+                    && this.seatIds.size() == seatIds.size()
+                    && new HashSet<>(this.seatIds).equals(new HashSet<>(seatIds))
+                    && Objects.equals(this.promoCode, requested);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.moviebooking.service;
+
+/**
+ * A guarded seat write matched fewer rows than requested: another booking, hold or
+ * cancellation got to some of the seats first. Retrying the same selection cannot succeed.
+ */
+public class SeatConflictException extends RuntimeException {
+
+    public SeatConflictException(String message) {
+        super(message);
+    }
+}
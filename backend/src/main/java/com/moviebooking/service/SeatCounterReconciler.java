@@ -0,0 +1,107 @@
+package com.moviebooking.service;
+
+import com.moviebooking.repository.SeatRepository;
+import com.moviebooking.repository.ShowRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Periodically verifies Show.availableSeats against the seats table.
+ * Shows are walked in id order in fixed-size batches; a drifted counter is only
+ * corrected if it still holds the value that was checked, so concurrent
+ * booking deltas are never overwritten. The same sweep drops the in-memory
+ * seat maps of shows that have started.
+ */
+@Slf4j
+@Component
+public class SeatCounterReconciler {
+
+    private final ShowRepository showRepository;
+    private final SeatRepository seatRepository;
+    private final SeatInventory seatInventory;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${booking.counters.reconcile-batch-size:200}")
+    private int batchSize;
+
+    public SeatCounterReconciler(ShowRepository showRepository,
+                                 SeatRepository seatRepository,
+                                 SeatInventory seatInventory,
+                                 PlatformTransactionManager transactionManager) {
+        this.showRepository = showRepository;
+        this.seatRepository = seatRepository;
+        this.seatInventory = seatInventory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.counters.reconcile-interval-ms:300000}",
+               initialDelayString = "${booking.counters.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        LocalDate today = LocalDate.now();
+        long afterId = 0L;
+        int checked = 0;
+        int corrected = 0;
+
+        while (true) {
+            // Counters are read before seats so a booking committing in between shows up as a
+            // mismatch whose compare-and-set then fails, rather than as a stale "fix"
+            List<Object[]> counters = showRepository.findAvailabilityCounters(today, afterId, PageRequest.of(0, batchSize));
+            if (counters.isEmpty()) {
+                break;
+            }
+
+            Map<Long, Integer> recorded = new HashMap<>();
+            for (Object[] counter : counters) {
+                recorded.put((Long) counter[0], (Integer) counter[1]);
+            }
+            Map<Long, Integer> actual = new HashMap<>();
+            for (Object[] count : seatRepository.countAvailableSeatsByShowIds(recorded.keySet())) {
+                actual.put((Long) count[0], ((Number) count[1]).intValue());
+            }
+
+            // Shows without a seat layout have nothing to verify against and are skipped
+            for (Map.Entry<Long, Integer> entry : recorded.entrySet()) {
+                Long showId = entry.getKey();
+                Integer seats = actual.get(showId);
+                if (seats != null && entry.getValue() != null && !entry.getValue().equals(seats)) {
+                    Integer updated = transactionTemplate.execute(status ->
+                            showRepository.resetAvailableSeats(showId, entry.getValue(), seats));
+                    if (updated != null && updated > 0) {
+                        corrected++;
+                        log.info("Reconciled available seats for show {}: {} -> {}", showId, entry.getValue(), seats);
+                    }
+                }
+            }
+
+            checked += counters.size();
+            afterId = (Long) counters.get(counters.size() - 1)[0];
+        }
+
+        log.debug("Seat counter reconciliation checked {} shows, corrected {}", checked, corrected);
+        retireStartedShows();
+    }
+
+    /**
+     * Drop the seat maps of shows that have started; nothing books them any more
+     */
+    private void retireStartedShows() {
+        Set<Long> cached = seatInventory.cachedShowIds();
+        if (cached.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        seatInventory.retire(showRepository.findStartedIds(cached, now.toLocalDate(), now.toLocalTime()));
+    }
+}
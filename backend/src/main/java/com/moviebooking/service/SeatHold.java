@@ -0,0 +1,24 @@
+package com.moviebooking.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A set of seats of one show held for a client, addressed by an opaque token.
+ * ownerId is the user who took the hold, or null for a hold taken anonymously,
+ * which the token alone authorises.
+ */
+public record SeatHold(String holdId, Long showId, List<Long> seatIds, LocalDateTime expiresAt, Long ownerId) {
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(LocalDateTime.now());
+    }
+
+    public boolean isOwnedBy(Long userId) {
+        return ownerId == null || ownerId.equals(userId);
+    }
+
+    public SeatHold extendedTo(LocalDateTime newExpiry) {
+        return new SeatHold(holdId, showId, seatIds, newExpiry, ownerId);
+    }
+}
@@ -0,0 +1,96 @@
+package com.moviebooking.service;
+
+import com.moviebooking.entity.SeatHoldRecord;
+import com.moviebooking.repository.SeatHoldRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and resolves hold tokens. Tokens are 128 random bits, so holding one
+ * is what authorises a client to extend, release or book the held seats; a hold
+ * taken by a signed-in user is additionally bound to that user.
+ * Tokens live in seat_holds, so a hold taken on one node can be booked or
+ * released through any other, and outlives a restart.
+ */
+@Slf4j
+@Component
+public class SeatHoldRegistry {
+
+    private final SecureRandom random = new SecureRandom();
+    private final SeatHoldRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+
+    public SeatHoldRegistry(SeatHoldRecordRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public SeatHold register(Long showId, List<Long> seatIds, LocalDateTime expiresAt, Long ownerId) {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String holdId = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        SeatHold hold = new SeatHold(holdId, showId, List.copyOf(seatIds), expiresAt, ownerId);
+        transactionTemplate.executeWithoutResult(status -> repository.save(SeatHoldRecord.builder()
+                .holdId(holdId)
+                .showId(showId)
+                .seatIds(seatIds.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .ownerId(ownerId)
+                .expiresAt(expiresAt)
+                .build()));
+        return hold;
+    }
+
+    /**
+     * Find a live hold
+     */
+    public Optional<SeatHold> find(String holdId) {
+        if (holdId == null) {
+            return Optional.empty();
+        }
+        return repository.findByHoldId(holdId)
+                .map(SeatHoldRegistry::toHold)
+                .filter(hold -> !hold.isExpired());
+    }
+
+    /**
+     * Swap in an updated hold only if nobody changed it in the meantime
+     */
+    public boolean replace(SeatHold current, SeatHold updated) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                repository.extend(current.holdId(), current.expiresAt(), updated.expiresAt()) == 1));
+    }
+
+    /**
+     * Drop a hold only if it is still the given one
+     */
+    public boolean remove(SeatHold hold) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                repository.deleteHold(hold.holdId(), hold.expiresAt()) == 1));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        if (purged != null && purged > 0) {
+            log.debug("Purged {} expired hold tokens", purged);
+        }
+    }
+
+    private static SeatHold toHold(SeatHoldRecord record) {
+        List<Long> seatIds = Arrays.stream(record.getSeatIds().split(","))
+                .map(Long::valueOf)
+                .toList();
+        return new SeatHold(record.getHoldId(), record.getShowId(), seatIds, record.getExpiresAt(), record.getOwnerId());
+    }
+}
@@ -0,0 +1,360 @@
+package com.moviebooking.service;
+
+import com.moviebooking.dto.SeatDTO;
+import com.moviebooking.repository.SeatRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory seat inventory for active shows.
+ * Shows are dropped again once they have started (see {@link SeatCounterReconciler}), once
+ * they go unused for a while, or least recently used first when more than max-shows are loaded.
+ * Ids without seats are answered from an uncached empty map.
+ * Seat ids are screen layout ids; the database keeps a state row only for seats that have
+ * been held or sold, created on first claim (see {@link #ensureSeatRows(Long, Collection)}).
+ * Each show is loaded once with a single projection query; availability checks
+ * are then answered from its {@link ShowSeatMap}. Holds are claimed in memory
+ * first (so contended seats are rejected without SQL) and then confirmed by a
+ * single guarded UPDATE, which stays the source of truth across nodes.
+ * Each show's seat map carries a version that keeps increasing across reloads, which the
+ * seat status stream resumes from; the seat list itself is tagged from the database.
+ */
+@Slf4j
+@Component
+public class SeatInventory {
+
+    private final SeatRepository seatRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, ShowSeatMap> shows = new ConcurrentHashMap<>();
+    private final Map<Long, Long> retiredVersions = new ConcurrentHashMap<>();
+    private final long epoch = System.currentTimeMillis();
+
+    @Value("${booking.inventory.max-shows:5000}")
+    private int maxShows;
+
+    @Value("${booking.inventory.idle-minutes:60}")
+    private long idleMinutes;
+
+    public SeatInventory(SeatRepository seatRepository, PlatformTransactionManager transactionManager) {
+        this.seatRepository = seatRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Get the seat map for a show, loading it on first access
+     */
+    public ShowSeatMap forShow(Long showId) {
+        ShowSeatMap seatMap = shows.get(showId);
+        if (seatMap == null) {
+            seatMap = loadAndCache(showId);
+        }
+        seatMap.touch();
+        return seatMap;
+    }
+
+    /**
+     * Create state rows for the given layout seats of a show that have none yet, so guarded
+     * updates can match them. Runs in its own transaction; a concurrent insert of the same
+     * seat loses on the unique key and is simply retried against the rows now present.
+     */
+    public void ensureSeatRows(Long showId, Collection<Long> seatIds) {
+        List<Long> ids = List.copyOf(seatIds);
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> seatRepository.createMissingSeats(showId, ids));
+        } catch (DataIntegrityViolationException e) {
+            transactionTemplate.executeWithoutResult(status -> seatRepository.createMissingSeats(showId, ids));
+        }
+    }
+
+    /**
+     * Opaque tag for the state of a show's seats in the database; changes on every hold, release,
+     * sale or cancellation made through any node
+     */
+    public String seatStateTag(Long showId) {
+        List<Object[]> stamp = seatRepository.findSeatStateStamp(showId);
+        Object[] row = stamp.isEmpty() ? new Object[] {0L, 0L} : stamp.get(0);
+        return "s" + row[0] + "-" + row[1];
+    }
+
+    /**
+     * Tag for a version of this instance's seat map, used by the seat status stream.
+     * Prefixed with this instance's start time so tags never repeat across restarts.
+     */
+    public String versionTag(long version) {
+        return epoch + "-" + version;
+    }
+
+    /**
+     * Version behind a tag issued by this instance, or -1 if the tag is foreign or malformed
+     */
+    public long parseVersionTag(String tag) {
+        String prefix = epoch + "-";
+        if (tag == null || !tag.startsWith(prefix)) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(tag.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    public boolean areAvailable(Long showId, Collection<Long> seatIds) {
+        return forShow(showId).areAvailable(seatIds, System.currentTimeMillis());
+    }
+
+    public boolean areHeld(Long showId, Collection<Long> seatIds) {
+        return forShow(showId).areHeld(seatIds, System.currentTimeMillis());
+    }
+
+    public int availableCount(Long showId) {
+        return forShow(showId).availableCount(System.currentTimeMillis());
+    }
+
+    /**
+     * Hold all given seats or none of them.
+     * Returns the hold deadline (millisecond precision), or null if any seat is taken.
+     */
+    public LocalDateTime tryHold(Long showId, Collection<Long> seatIds, LocalDateTime holdUntil) {
+        LocalDateTime until = holdUntil.truncatedTo(ChronoUnit.MILLIS);
+        ShowSeatMap seatMap = forShow(showId);
+        if (!seatMap.tryHold(seatIds, ShowSeatMap.toEpochMillis(until), System.currentTimeMillis())) {
+            return null;
+        }
+        return confirmClaim(seatMap, showId, List.copyOf(seatIds), until) ? until : null;
+    }
+
+    /**
+     * Pick the best contiguous block of seats for a party and hold it.
+     * Returns the held seat IDs, or null if no block fits.
+     */
+    public List<Long> allocate(Long showId, int count, String seatType, LocalDateTime holdUntil) {
+        LocalDateTime until = holdUntil.truncatedTo(ChronoUnit.MILLIS);
+        ShowSeatMap seatMap = forShow(showId);
+        List<Long> ids = seatMap.allocate(count, seatType, ShowSeatMap.toEpochMillis(until), System.currentTimeMillis());
+        if (ids == null) {
+            return null;
+        }
+        return confirmClaim(seatMap, showId, ids, until) ? ids : null;
+    }
+
+    /**
+     * Move a hold to a later deadline; false if any seat no longer carries the current one
+     */
+    public boolean extend(Long showId, Collection<Long> seatIds, LocalDateTime currentUntil, LocalDateTime newUntil) {
+        List<Long> ids = List.copyOf(seatIds);
+        boolean extended = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (seatRepository.extendHolds(ids, showId, currentUntil, newUntil) != ids.size()) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        }));
+        if (extended) {
+            forShow(showId).extendHolds(ids, ShowSeatMap.toEpochMillis(currentUntil), ShowSeatMap.toEpochMillis(newUntil));
+        }
+        return extended;
+    }
+
+    /**
+     * Release holds on the given seats of a show
+     */
+    public void release(Long showId, Collection<Long> seatIds) {
+        List<Long> ids = List.copyOf(seatIds);
+        transactionTemplate.executeWithoutResult(status -> seatRepository.releaseHolds(ids, showId));
+        forShow(showId).release(ids);
+    }
+
+    /**
+     * Record seats as sold once the surrounding transaction commits
+     */
+    public void markSold(Long showId, Collection<Long> seatIds) {
+        List<Long> ids = List.copyOf(seatIds);
+        afterCommit(() -> forShow(showId).markSold(ids));
+    }
+
+    /**
+     * Record seats as available again once the surrounding transaction commits
+     */
+    public void markAvailable(Long showId, Collection<Long> seatIds) {
+        List<Long> ids = List.copyOf(seatIds);
+        afterCommit(() -> forShow(showId).markAvailable(ids));
+    }
+
+    /**
+     * Describe seats from the in-memory layout, falling back to the show price for unpriced seats.
+     * Returns null if any seat does not belong to the show.
+     */
+    public List<SeatDTO> describe(Long showId, Collection<Long> seatIds, BigDecimal showPrice) {
+        ShowSeatMap seatMap = forShow(showId);
+        long now = System.currentTimeMillis();
+        List<SeatDTO> seats = new ArrayList<>(seatIds.size());
+        for (Long seatId : seatIds) {
+            int slot = seatMap.slotOf(seatId);
+            if (slot < 0) {
+                return null;
+            }
+            seats.add(toSeatDTO(seatMap, slot, now, showPrice));
+        }
+        return seats;
+    }
+
+    /**
+     * Describe every seat of a show as the database has it, ordered by row and seat number.
+     * Read fresh rather than from this node's seat map, which misses holds and sales made elsewhere.
+     */
+    public List<SeatDTO> describeAll(Long showId) {
+        ShowSeatMap seatMap = ShowSeatMap.of(showId, seatRepository.findSeatLayoutByShowId(showId), 0L);
+        long now = System.currentTimeMillis();
+        List<SeatDTO> seats = new ArrayList<>(seatMap.presentCount());
+        for (int slot = 0; slot < seatMap.getRowCount() * seatMap.getRowWidth(); slot++) {
+            if (seatMap.seatIdAt(slot) != 0L) {
+                seats.add(toSeatDTO(seatMap, slot, now, null));
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * Drop a show from memory; it is reloaded from the database on next access
+     */
+    public void evict(Long showId) {
+        ShowSeatMap removed = shows.remove(showId);
+        if (removed != null) {
+            retiredVersions.merge(showId, removed.getVersion(), Math::max);
+        }
+    }
+
+    /**
+     * IDs of the shows this instance keeps anything for: loaded seat maps and versions of evicted ones
+     */
+    public Set<Long> cachedShowIds() {
+        Set<Long> showIds = new HashSet<>(shows.keySet());
+        showIds.addAll(retiredVersions.keySet());
+        return showIds;
+    }
+
+    /**
+     * Drop shows that have started for good; they are no longer bookable, so unlike
+     * {@link #evict(Long)} their version history is forgotten as well
+     */
+    public void retire(Collection<Long> showIds) {
+        Set<Long> retired = new HashSet<>(showIds);
+        if (retired.isEmpty()) {
+            return;
+        }
+        retired.forEach(showId -> {
+            shows.remove(showId);
+            retiredVersions.remove(showId);
+        });
+        log.debug("Retired seat inventory of {} started shows", retired.size());
+    }
+
+    /**
+     * Drop shows nobody has looked at for idle-minutes; they reload from the database on next access
+     */
+    @Scheduled(fixedDelayString = "${booking.inventory.idle-check-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000L;
+        int before = shows.size();
+        shows.forEach((showId, seatMap) -> {
+            if (seatMap.getLastAccessMillis() < cutoff) {
+                evict(showId);
+            }
+        });
+        if (shows.size() < before) {
+            log.debug("Evicted {} idle shows from seat inventory", before - shows.size());
+        }
+    }
+
+    private ShowSeatMap loadAndCache(Long showId) {
+        List<Object[]> layout = seatRepository.findSeatLayoutByShowId(showId);
+        long version = retiredVersions.getOrDefault(showId, 0L) + 1;
+        if (layout.isEmpty()) {
+            // Unknown or seatless show: nothing worth keeping, so probing ids cannot grow memory
+            return ShowSeatMap.of(showId, layout, version);
+        }
+        ShowSeatMap seatMap = shows.computeIfAbsent(showId, id -> ShowSeatMap.of(id, layout, version));
+        log.debug("Loaded seat inventory for show {} ({} seats)", showId, seatMap.presentCount());
+        if (shows.size() > maxShows) {
+            evictLeastRecentlyUsed(shows.size() - maxShows);
+        }
+        return seatMap;
+    }
+
+    private void evictLeastRecentlyUsed(int count) {
+        shows.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().getLastAccessMillis()))
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(this::evict);
+    }
+
+    private SeatDTO toSeatDTO(ShowSeatMap seatMap, int slot, long now, BigDecimal fallbackPrice) {
+        return SeatDTO.builder()
+                .id(seatMap.seatIdAt(slot))
+                .seatRow(seatMap.rowLabel(slot / seatMap.getRowWidth()))
+                .seatNumber(slot % seatMap.getRowWidth() + 1)
+                .seatType(seatMap.seatTypeAt(slot))
+                .price(seatMap.priceAt(slot) != null ? seatMap.priceAt(slot) : fallbackPrice)
+                .isAvailable(!seatMap.isSold(slot))
+                .isBlocked(seatMap.isHeld(slot, now))
+                .displayName(seatMap.labelAt(slot))
+                .build();
+    }
+
+    private boolean confirmClaim(ShowSeatMap seatMap, Long showId, List<Long> ids, LocalDateTime until) {
+        boolean claimed;
+        try {
+            ensureSeatRows(showId, ids);
+            claimed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                int updated = seatRepository.claimSeats(ids, showId, until, LocalDateTime.now());
+                if (updated != ids.size()) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            seatMap.release(ids);
+            throw e;
+        }
+
+        if (!claimed) {
+            // Another node (or a direct write) got there first; our copy is stale
+            log.debug("Guarded hold lost for show {}, reloading seat inventory", showId);
+            evict(showId);
+        }
+        return claimed;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
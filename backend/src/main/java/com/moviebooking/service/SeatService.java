@@ -1,104 +1,155 @@
 package com.moviebooking.service;
 
-import com.moviebooking.entity.Seat;
 import com.moviebooking.repository.SeatRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class SeatService {
 
     private final SeatRepository seatRepository;
+    private final SeatInventory seatInventory;
+    private final HoldExpiryScheduler holdExpiryScheduler;
+    private final SeatHoldRegistry seatHoldRegistry;
+
+    @Value("${booking.hold.max-minutes:15}")
+    private int maxHoldMinutes;
 
     /**
-     * Get all seats for a show
+     * Reserve seats temporarily during booking process and issue a hold token; ownerId is null for anonymous callers
      */
-    public List<Seat> getSeatsForShow(Long showId) {
-        return seatRepository.findByShowIdOrderBySeatRowAscSeatNumberAsc(showId);
+    public Optional<SeatHold> reserveSeats(Long showId, List<Long> seatIds, Integer reservationTimeMinutes, Long ownerId) {
+        // One guarded UPDATE claims every seat or none of them
+        LocalDateTime blockUntil = seatInventory.tryHold(showId, seatIds,
+                LocalDateTime.now().plusMinutes(clampHoldMinutes(reservationTimeMinutes)));
+        if (blockUntil == null) {
+            return Optional.empty();
+        }
+        holdExpiryScheduler.schedule(showId, seatIds, blockUntil);
+        return Optional.of(seatHoldRegistry.register(showId, seatIds, blockUntil, ownerId));
     }
 
     /**
-     * Get available seats for a show
+     * Pick the best contiguous block of seats for a party, hold it and issue a hold token
      */
-    public List<Seat> getAvailableSeatsForShow(Long showId) {
-        return seatRepository.findByShowIdAndIsAvailableTrueAndIsBlockedFalse(showId);
+    public Optional<SeatHold> allocateSeats(Long showId, int count, String seatType, Integer reservationTimeMinutes,
+                                            Long ownerId) {
+        LocalDateTime blockUntil = LocalDateTime.now()
+                .plusMinutes(clampHoldMinutes(reservationTimeMinutes))
+                .truncatedTo(ChronoUnit.MILLIS);
+        List<Long> seatIds = seatInventory.allocate(showId, count, seatType, blockUntil);
+        if (seatIds == null) {
+            return Optional.empty();
+        }
+        holdExpiryScheduler.schedule(showId, seatIds, blockUntil);
+        return Optional.of(seatHoldRegistry.register(showId, seatIds, blockUntil, ownerId));
     }
 
     /**
-     * Reserve seats temporarily during booking process
+     * Resolve a live hold token on behalf of a user (null when anonymous).
+     * Another user's hold is reported exactly like a missing one.
      */
-    @Transactional
-    public boolean reserveSeats(Long showId, List<Long> seatIds, Integer reservationTimeMinutes) {
-        List<Seat> seats = seatRepository.findByIdInAndShowId(seatIds, showId);
-        
-        // Check if all seats are available
-        for (Seat seat : seats) {
-            if (!seat.getIsAvailable() || seat.getIsBlocked()) {
-                return false;
-            }
+    public SeatHold getHold(String holdId, Long userId) {
+        return seatHoldRegistry.find(holdId)
+                .filter(hold -> hold.isOwnedBy(userId))
+                .orElseThrow(() -> new RuntimeException("Seat hold not found or expired"));
+    }
+
+    /**
+     * Push a hold's expiry further out
+     */
+    public SeatHold extendHold(String holdId, Integer extraMinutes, Long userId) {
+        SeatHold hold = getHold(holdId, userId);
+        LocalDateTime newExpiry = hold.expiresAt().plusMinutes(clampHoldMinutes(extraMinutes));
+        LocalDateTime cap = LocalDateTime.now().plusMinutes(maxHoldMinutes);
+        if (newExpiry.isAfter(cap)) {
+            newExpiry = cap.truncatedTo(ChronoUnit.MILLIS);
+        }
+        if (!newExpiry.isAfter(hold.expiresAt())) {
+            return hold;
         }
-        
-        // Block the seats temporarily
-        LocalDateTime blockUntil = LocalDateTime.now().plusMinutes(reservationTimeMinutes);
-        for (Seat seat : seats) {
-            seat.setIsBlocked(true);
-            seat.setBlockedUntil(blockUntil);
+
+        // The guarded UPDATE on the current deadline lets exactly one concurrent extension win
+        if (!seatInventory.extend(hold.showId(), hold.seatIds(), hold.expiresAt(), newExpiry)) {
+            throw new RuntimeException("Seat hold could not be extended");
         }
-        
-        seatRepository.saveAll(seats);
-        return true;
+        SeatHold extended = hold.extendedTo(newExpiry);
+        seatHoldRegistry.replace(hold, extended);
+        holdExpiryScheduler.schedule(hold.showId(), hold.seatIds(), newExpiry);
+        return extended;
     }
 
     /**
-     * Release reserved seats
+     * Release the seats behind a hold token; releasing an unknown or expired hold does nothing
      */
-    @Transactional
-    public void releaseSeats(Long showId, List<Long> seatIds) {
-        List<Seat> seats = seatRepository.findByIdInAndShowId(seatIds, showId);
-        
-        for (Seat seat : seats) {
-            if (seat.getIsBlocked()) {
-                seat.setIsBlocked(false);
-                seat.setBlockedUntil(null);
-            }
+    public void releaseHold(String holdId, Long userId) {
+        Optional<SeatHold> found = seatHoldRegistry.find(holdId);
+        if (found.isEmpty()) {
+            return;
+        }
+        SeatHold hold = found.get();
+        if (!hold.isOwnedBy(userId)) {
+            throw new RuntimeException("Seat hold not found or expired");
+        }
+        if (seatHoldRegistry.remove(hold)) {
+            seatInventory.release(hold.showId(), hold.seatIds());
         }
-        
-        seatRepository.saveAll(seats);
     }
 
     /**
-     * Book seats permanently
+     * Forget a hold whose seats have been sold by its owner
+     */
+    public void completeHold(String holdId, Long userId) {
+        seatHoldRegistry.find(holdId)
+                .filter(hold -> hold.isOwnedBy(userId))
+                .ifPresent(seatHoldRegistry::remove);
+    }
+
+    /**
+     * Book held seats permanently; fails unless every seat is still unsold and under this hold.
+     * A hold that lapsed while payment was in flight cannot take seats from whoever holds them now.
      */
     @Transactional
-    public void bookSeats(List<Long> seatIds) {
-        List<Seat> seats = seatRepository.findAllById(seatIds);
-        
-        for (Seat seat : seats) {
-            seat.setIsAvailable(false);
-            seat.setIsBlocked(false);
-            seat.setBlockedUntil(null);
+    public void bookSeats(SeatHold hold) {
+        if (seatRepository.sellSeats(hold.seatIds(), hold.showId(), hold.expiresAt(), LocalDateTime.now())
+                != hold.seatIds().size()) {
+            throw new SeatConflictException("Some seats are no longer available");
         }
-        
-        seatRepository.saveAll(seats);
+        seatInventory.markSold(hold.showId(), hold.seatIds());
     }
 
     /**
-     * Release expired seat blocks
+     * Book seats directly without a hold; fails unless every seat belongs to the show, is unsold and is not held.
+     * The seats need state rows first, see {@link SeatInventory#ensureSeatRows}.
      */
     @Transactional
-    public void releaseExpiredBlocks() {
-        List<Seat> expiredBlockedSeats = seatRepository.findExpiredBlockedSeats(LocalDateTime.now());
-        
-        for (Seat seat : expiredBlockedSeats) {
-            seat.setIsBlocked(false);
-            seat.setBlockedUntil(null);
+    public void bookFreeSeats(Long showId, List<Long> seatIds) {
+        if (seatRepository.sellFreeSeats(seatIds, showId, LocalDateTime.now()) != seatIds.size()) {
+            throw new SeatConflictException("Some selected seats are no longer available");
+        }
+        seatInventory.markSold(showId, seatIds);
+    }
+
+    private int clampHoldMinutes(Integer minutes) {
+        if (minutes == null || minutes < 1) {
+            return 1;
         }
-        
-        seatRepository.saveAll(expiredBlockedSeats);
+        return Math.min(minutes, maxHoldMinutes);
+    }
+
+    /**
+     * Release all expired seat blocks in one statement (live holds are expired by HoldExpiryScheduler)
+     */
+    @Transactional
+    public int releaseExpiredBlocks() {
+        return seatRepository.releaseAllExpiredHolds(LocalDateTime.now());
     }
 }
\ No newline at end of file
@@ -0,0 +1,200 @@
+package com.moviebooking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moviebooking.dto.SeatStatusFrame;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes seat status changes to Server-Sent Events subscribers.
+ * Each show with subscribers has one feed; every tick it drains the seats changed in the
+ * show's {@link ShowSeatMap} since the previous tick and fans the result out as a single
+ * frame, so a burst of holds costs one push per client. New subscribers get a snapshot, or
+ * just the recent frames they missed when they reconnect with a Last-Event-ID still in range.
+ */
+@Slf4j
+@Component
+public class SeatStatusPublisher {
+
+    private final SeatInventory seatInventory;
+    private final ObjectMapper objectMapper;
+    private final Map<Long, ShowFeed> feeds = new ConcurrentHashMap<>();
+
+    @Value("${booking.seat-stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${booking.seat-stream.replay-frames:100}")
+    private int replayFrames;
+
+    public SeatStatusPublisher(SeatInventory seatInventory, ObjectMapper objectMapper) {
+        this.seatInventory = seatInventory;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Open a stream for a show; the first frame follows on the next tick
+     */
+    public SseEmitter subscribe(Long showId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        long lastVersion = seatInventory.parseVersionTag(lastEventId);
+        ShowFeed feed = feeds.compute(showId, (id, existing) -> {
+            ShowFeed target = existing != null ? existing : new ShowFeed(id);
+            target.joining.add(new Joiner(emitter, lastVersion));
+            return target;
+        });
+        emitter.onCompletion(() -> feed.emitters.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> feed.emitters.remove(emitter));
+        return emitter;
+    }
+
+    public int subscriberCount(Long showId) {
+        ShowFeed feed = feeds.get(showId);
+        return feed != null ? feed.emitters.size() : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${booking.seat-stream.tick-ms:500}")
+    public void publish() {
+        for (Long showId : feeds.keySet()) {
+            ShowFeed feed = feeds.computeIfPresent(showId, (id, existing) -> existing.isIdle() ? null : existing);
+            if (feed != null) {
+                try {
+                    feed.tick();
+                } catch (RuntimeException e) {
+                    log.warn("Seat stream tick failed for show {}", showId, e);
+                }
+            }
+        }
+    }
+
+    private Set<DataWithMediaType> toEvent(Long showId, ShowSeatMap.Changes changes, boolean snapshot) {
+        SeatStatusFrame frame = SeatStatusFrame.builder()
+                .showId(showId)
+                .version(seatInventory.versionTag(changes.version()))
+                .snapshot(snapshot)
+                .seatIds(changes.seatIds())
+                .states(changes.states().stream().map(Enum::name).toList())
+                .build();
+        try {
+            // Serialized once and shared by every subscriber of the frame
+            return SseEmitter.event()
+                    .id(frame.getVersion())
+                    .name(snapshot ? "snapshot" : "delta")
+                    .data(objectMapper.writeValueAsString(frame), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize seat status frame", e);
+        }
+    }
+
+    private record Joiner(SseEmitter emitter, long lastVersion) {
+    }
+
+    private record SentFrame(long version, Set<DataWithMediaType> event) {
+    }
+
+    /**
+     * Per-show fan-out; only touched from the publishing thread apart from the two concurrent collections
+     */
+    private final class ShowFeed {
+
+        private final Long showId;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private final Queue<Joiner> joining = new ConcurrentLinkedQueue<>();
+        private final Deque<SentFrame> recent = new ArrayDeque<>();
+        private ShowSeatMap source;
+        private long replayableFrom;
+
+        private ShowFeed(Long showId) {
+            this.showId = showId;
+        }
+
+        private boolean isIdle() {
+            return emitters.isEmpty() && joining.isEmpty();
+        }
+
+        private void tick() {
+            ShowSeatMap seatMap = seatInventory.forShow(showId);
+            long now = System.currentTimeMillis();
+
+            if (seatMap != source) {
+                // First tick, or the inventory was reloaded: everyone starts again from a snapshot
+                seatMap.drainChanges(now);
+                ShowSeatMap.Changes snapshot = seatMap.snapshot(now);
+                source = seatMap;
+                recent.clear();
+                replayableFrom = snapshot.version();
+                broadcast(toEvent(showId, snapshot, true));
+            } else {
+                ShowSeatMap.Changes changes = seatMap.drainChanges(now);
+                if (!changes.isEmpty()) {
+                    Set<DataWithMediaType> event = toEvent(showId, changes, false);
+                    remember(changes.version(), event);
+                    broadcast(event);
+                }
+            }
+
+            ShowSeatMap.Changes snapshot = null;
+            for (Joiner joiner = joining.poll(); joiner != null; joiner = joining.poll()) {
+                boolean sent;
+                if (joiner.lastVersion() >= replayableFrom) {
+                    sent = replay(joiner);
+                } else {
+                    if (snapshot == null) {
+                        snapshot = seatMap.snapshot(now);
+                    }
+                    sent = send(joiner.emitter(), toEvent(showId, snapshot, true));
+                }
+                if (sent) {
+                    emitters.add(joiner.emitter());
+                }
+            }
+        }
+
+        private boolean replay(Joiner joiner) {
+            for (SentFrame frame : recent) {
+                if (frame.version() > joiner.lastVersion() && !send(joiner.emitter(), frame.event())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void remember(long version, Set<DataWithMediaType> event) {
+            recent.addLast(new SentFrame(version, event));
+            while (recent.size() > replayFrames) {
+                replayableFrom = recent.removeFirst().version();
+            }
+        }
+
+        private void broadcast(Set<DataWithMediaType> event) {
+            for (SseEmitter emitter : emitters) {
+                if (!send(emitter, event)) {
+                    emitters.remove(emitter);
+                }
+            }
+        }
+
+        private boolean send(SseEmitter emitter, Set<DataWithMediaType> event) {
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping seat stream subscriber for show {}: {}", showId, e.getMessage());
+                return false;
+            }
+        }
+    }
+}
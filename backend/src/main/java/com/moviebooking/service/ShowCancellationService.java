@@ -0,0 +1,219 @@
+package com.moviebooking.service;
+
+import com.moviebooking.entity.Show;
+import com.moviebooking.entity.ShowCancellation;
+import com.moviebooking.repository.BookingRepository;
+import com.moviebooking.repository.SeatRepository;
+import com.moviebooking.repository.ShowCancellationRepository;
+import com.moviebooking.repository.ShowRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cancels a whole show as a resumable background job.
+ * Cancelling deactivates the show at once, which stops new holds and sales, and records a
+ * {@link ShowCancellation}. A scheduled worker then walks the show's bookings in id order, one
+ * chunk per transaction: the bookings are cancelled with one UPDATE, their seats released with
+ * another, refunds for paid bookings inserted as a JDBC batch and the job's cursor advanced.
+ * A restarted node, or any other node, picks the job up from its cursor.
+ */
+@Slf4j
+@Service
+public class ShowCancellationService {
+
+    private static final String INSERT_REFUND =
+            "INSERT INTO refunds (booking_id, user_id, amount, transaction_id, status, reason, show_cancellation_id, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, 'PENDING', ?, ?, ?, ?)";
+
+    private final ShowCancellationRepository showCancellationRepository;
+    private final ShowRepository showRepository;
+    private final BookingRepository bookingRepository;
+    private final SeatRepository seatRepository;
+    private final SeatInventory seatInventory;
+    private final PricingEngine pricingEngine;
+    private final StatisticsAggregator statisticsAggregator;
+    private final BookingTimeSeries bookingTimeSeries;
+    private final WaitlistService waitlistService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${booking.show-cancellation.chunk-size:200}")
+    private int chunkSize;
+
+    public ShowCancellationService(ShowCancellationRepository showCancellationRepository,
+                                   ShowRepository showRepository,
+                                   BookingRepository bookingRepository,
+                                   SeatRepository seatRepository,
+                                   SeatInventory seatInventory,
+                                   PricingEngine pricingEngine,
+                                   StatisticsAggregator statisticsAggregator,
+                                   BookingTimeSeries bookingTimeSeries,
+                                   WaitlistService waitlistService,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager) {
+        this.showCancellationRepository = showCancellationRepository;
+        this.showRepository = showRepository;
+        this.bookingRepository = bookingRepository;
+        this.seatRepository = seatRepository;
+        this.seatInventory = seatInventory;
+        this.pricingEngine = pricingEngine;
+        this.statisticsAggregator = statisticsAggregator;
+        this.bookingTimeSeries = bookingTimeSeries;
+        this.waitlistService = waitlistService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Stop sales for a show and queue it for cancellation; a show already being cancelled returns its job
+     */
+    public ShowCancellation cancelShow(Long showId, String reason, Long requestedBy) {
+        return transactionTemplate.execute(status -> {
+            Optional<ShowCancellation> existing = showCancellationRepository.findByShowId(showId);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+            Show show = showRepository.findById(showId)
+                    .orElseThrow(() -> new RuntimeException("Show not found with id: " + showId));
+            show.setIsActive(false);
+            showRepository.save(show);
+
+            log.info("Cancelling show {} ({})", showId, reason);
+            return showCancellationRepository.save(ShowCancellation.builder()
+                    .showId(showId)
+                    .reason(reason)
+                    .requestedBy(requestedBy)
+                    .totalBookings(bookingRepository.countActiveBookingsForShow(showId))
+                    .build());
+        });
+    }
+
+    public Optional<ShowCancellation> getCancellation(Long showId) {
+        return showCancellationRepository.findByShowId(showId);
+    }
+
+    /**
+     * Work through every unfinished cancellation
+     */
+    @Scheduled(fixedDelayString = "${booking.show-cancellation.poll-ms:2000}")
+    public void processPending() {
+        for (ShowCancellation cancellation : showCancellationRepository.findUnfinished()) {
+            try {
+                process(cancellation);
+            } catch (RuntimeException e) {
+                // Progress so far is committed; the next poll resumes from the cursor
+                log.warn("Cancellation of show {} interrupted, will resume", cancellation.getShowId(), e);
+            }
+        }
+    }
+
+    private void process(ShowCancellation cancellation) {
+        long cursor = cancellation.getLastBookingId();
+        while (true) {
+            Long next = processChunk(cancellation, cursor);
+            if (next == null) {
+                // Another worker moved the cursor; it owns the job now
+                return;
+            }
+            if (next > cursor) {
+                cursor = next;
+                continue;
+            }
+
+            // Bookings that were committing while the show was deactivated can sit behind the cursor
+            if (cursor > 0 && bookingRepository.countActiveBookingsForShow(cancellation.getShowId()) > 0) {
+                long from = cursor;
+                Integer rewound = transactionTemplate.execute(status ->
+                        showCancellationRepository.rewind(cancellation.getId(), from));
+                if (rewound == null || rewound == 0) {
+                    return;
+                }
+                cursor = 0L;
+                continue;
+            }
+            finish(cancellation);
+            return;
+        }
+    }
+
+    /**
+     * Cancel the next chunk of bookings after the cursor.
+     * Returns the new cursor, the same cursor when nothing was left, or null if another worker got there first.
+     */
+    private Long processChunk(ShowCancellation cancellation, long cursor) {
+        Long showId = cancellation.getShowId();
+        return transactionTemplate.execute(status -> {
+            List<Object[]> chunk = bookingRepository.findCancellableByShowId(showId, cursor, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                return cursor;
+            }
+
+            List<Long> bookingIds = new ArrayList<>(chunk.size());
+            List<Object[]> refunds = new ArrayList<>();
+            long cancelledPaise = 0L;
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (Object[] booking : chunk) {
+                bookingIds.add((Long) booking[0]);
+                cancelledPaise += PriceTable.toPaise((BigDecimal) booking[2]);
+                if ("CONFIRMED".equals(booking[6]) && "COMPLETED".equals(booking[3])) {
+                    statisticsAggregator.reverseRevenue(showId, (LocalDateTime) booking[5], (BigDecimal) booking[2]);
+                }
+                if ("COMPLETED".equals(booking[3])) {
+                    refunds.add(new Object[] {
+                            booking[0], booking[1], booking[2], booking[4],
+                            "Show cancelled", cancellation.getId(), now, now
+                    });
+                }
+            }
+            long last = bookingIds.get(bookingIds.size() - 1);
+
+            List<Long> seatIds = bookingRepository.findSeatIdsByBookingIds(bookingIds);
+            bookingRepository.cancelBookings(bookingIds);
+            int released = seatIds.isEmpty() ? 0 : seatRepository.releaseSoldSeats(seatIds, showId);
+            if (!refunds.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_REFUND, refunds);
+            }
+            if (released > 0 && showRepository.incrementAvailableSeats(showId, released) == 0) {
+                log.warn("Could not apply availability delta {} to show {}", released, showId);
+            }
+
+            if (showCancellationRepository.recordProgress(cancellation.getId(), cursor, last,
+                    bookingIds.size(), refunds.size(), released) == 0) {
+                status.setRollbackOnly();
+                return null;
+            }
+            seatInventory.markAvailable(showId, seatIds);
+            bookingTimeSeries.recordCancellations(showId, bookingIds.size(), seatIds.size(), cancelledPaise);
+            log.debug("Cancelled {} bookings of show {} ({} refunds queued, {} seats released)",
+                    bookingIds.size(), showId, refunds.size(), released);
+            return last;
+        });
+    }
+
+    private void finish(ShowCancellation cancellation) {
+        Long showId = cancellation.getShowId();
+        Integer completed = transactionTemplate.execute(status -> {
+            seatRepository.releaseAllHoldsForShow(showId);
+            return showCancellationRepository.complete(cancellation.getId(), LocalDateTime.now());
+        });
+        if (completed != null && completed > 0) {
+            seatInventory.evict(showId);
+            pricingEngine.invalidate(showId);
+            waitlistService.closeShow(showId);
+            log.info("Cancellation of show {} completed", showId);
+        }
+    }
+}
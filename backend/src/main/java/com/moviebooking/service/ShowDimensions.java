@@ -0,0 +1,54 @@
+package com.moviebooking.service;
+
+import com.moviebooking.repository.ShowRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Movie and city of each show, for attributing booking events without loading the show.
+ * Neither changes for a show's lifetime, so an entry is read once and kept, up to
+ * max-show-dimensions least recently used shows; unknown shows are not kept.
+ */
+@Component
+public class ShowDimensions {
+
+    public static final String UNKNOWN_CITY = "Unknown";
+
+    private final ShowRepository showRepository;
+    private final Map<Long, Dimensions> dimensions;
+
+    public ShowDimensions(ShowRepository showRepository,
+                          @Value("${booking.analytics.max-show-dimensions:10000}") int maxShows) {
+        this.showRepository = showRepository;
+        this.dimensions = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Dimensions> eldest) {
+                return size() > maxShows;
+            }
+        });
+    }
+
+    public Dimensions of(Long showId) {
+        Dimensions cached = dimensions.get(showId);
+        if (cached != null) {
+            return cached;
+        }
+        // Read outside the map's lock; a concurrent miss reads the same immutable values
+        List<Object[]> rows = showRepository.findMovieAndCityById(showId);
+        if (rows.isEmpty()) {
+            return new Dimensions(null, UNKNOWN_CITY);
+        }
+        Object[] row = rows.get(0);
+        Dimensions loaded = new Dimensions((Long) row[0], row[1] != null ? (String) row[1] : UNKNOWN_CITY);
+        dimensions.put(showId, loaded);
+        return loaded;
+    }
+
+    public record Dimensions(Long movieId, String city) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.moviebooking.service;
+
+import com.moviebooking.dto.ShowScheduleRequest;
+import com.moviebooking.dto.ShowScheduleResponse;
+import com.moviebooking.repository.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Schedules a run of shows (dates x screens x times) in bulk.
+ * Shows go in through JDBC batches (rewritten to multi-row INSERTs on MySQL), so the cost is a
+ * handful of statements instead of one round trip per show. Their seats come from the screen
+ * layouts and need no rows until they are held or sold; the seat counters start at the layout size.
+ */
+@Slf4j
+@Service
+public class ShowScheduleService {
+
+    private static final String INSERT_SHOW =
+            "INSERT INTO shows (movie_id, venue_id, show_date, show_time, screen_name, price, " +
+            "available_seats, total_seats, is_active, version, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, TRUE, 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MovieRepository movieRepository;
+    private final VenueRepository venueRepository;
+    private final ShowRepository showRepository;
+    private final ScreenSeatRepository screenSeatRepository;
+
+    @Value("${booking.schedule.insert-batch-size:500}")
+    private int batchSize;
+
+    @Value("${booking.schedule.max-days:92}")
+    private int maxDays;
+
+    public ShowScheduleService(JdbcTemplate jdbcTemplate,
+                               MovieRepository movieRepository,
+                               VenueRepository venueRepository,
+                               ShowRepository showRepository,
+                               ScreenSeatRepository screenSeatRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.movieRepository = movieRepository;
+        this.venueRepository = venueRepository;
+        this.showRepository = showRepository;
+        this.screenSeatRepository = screenSeatRepository;
+    }
+
+    @Transactional
+    public ShowScheduleResponse schedule(ShowScheduleRequest request) {
+        LocalDate from = request.getStartDate();
+        LocalDate to = request.getEndDate();
+        if (to.isBefore(from)) {
+            throw new RuntimeException("End date must not be before start date");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new RuntimeException("Schedules are limited to " + maxDays + " days per request");
+        }
+        if (!movieRepository.existsById(request.getMovieId())) {
+            throw new RuntimeException("Movie not found with id: " + request.getMovieId());
+        }
+        if (!venueRepository.existsById(request.getVenueId())) {
+            throw new RuntimeException("Venue not found with id: " + request.getVenueId());
+        }
+
+        Map<String, Integer> layoutSeats = new LinkedHashMap<>();
+        for (String screenName : new LinkedHashSet<>(request.getScreenNames())) {
+            int seats = screenSeatRepository.countLayoutSeats(request.getVenueId(), screenName);
+            if (seats == 0) {
+                throw new RuntimeException("No seat layout defined for " + screenName);
+            }
+            layoutSeats.put(screenName, seats);
+        }
+
+        Set<String> taken = new HashSet<>();
+        for (Object[] slot : showRepository.findScheduleSlots(request.getMovieId(), request.getVenueId(), from, to)) {
+            taken.add(slotKey((LocalDate) slot[0], (LocalTime) slot[1], (String) slot[2]));
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int skipped = 0;
+        int seats = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            for (Map.Entry<String, Integer> screen : layoutSeats.entrySet()) {
+                for (LocalTime time : new TreeSet<>(request.getShowTimes())) {
+                    if (taken.contains(slotKey(date, time, screen.getKey()))) {
+                        skipped++;
+                        continue;
+                    }
+                    seats += screen.getValue();
+                    rows.add(new Object[] {
+                            request.getMovieId(), request.getVenueId(), Date.valueOf(date), Time.valueOf(time),
+                            screen.getKey(), request.getPrice(), screen.getValue(), screen.getValue(), now, now
+                    });
+                }
+            }
+        }
+
+        for (int start = 0; start < rows.size(); start += batchSize) {
+            jdbcTemplate.batchUpdate(INSERT_SHOW, rows.subList(start, Math.min(start + batchSize, rows.size())));
+        }
+
+        log.info("Scheduled {} shows ({} seats, {} already existed) for movie {} at venue {} from {} to {}",
+                rows.size(), seats, skipped, request.getMovieId(), request.getVenueId(), from, to);
+        return ShowScheduleResponse.builder()
+                .showsCreated(rows.size())
+                .seatsCreated(seats)
+                .showsSkipped(skipped)
+                .message("Scheduled " + rows.size() + " shows")
+                .build();
+    }
+
+    private static String slotKey(LocalDate date, LocalTime time, String screenName) {
+        return date + "|" + time + "|" + screenName;
+    }
+}
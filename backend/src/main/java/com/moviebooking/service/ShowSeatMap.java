@@ -0,0 +1,429 @@
+package com.moviebooking.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Compact in-memory seat state for a single show.
+ * Seats are addressed by slot = rowIndex * rowWidth + (seatNumber - 1) and
+ * their sold / held state is kept in bitsets guarded by the map's monitor.
+ * Every change to that state bumps a monotonically increasing version and marks
+ * the seat as changed until the next {@link #drainChanges} call.
+ */
+public final class ShowSeatMap {
+
+    // Rows are labelled front (nearest the screen) to back; the sweet spot is about 60% of the way back
+    private static final double PREFERRED_ROW_DEPTH = 0.6;
+
+    private final Long showId;
+    private final String[] rowLabels;
+    private final int rowWidth;
+    private final long[] seatIds;
+    private final String[] seatTypes;
+    private final BigDecimal[] prices;
+    private final Map<Long, Integer> slotBySeatId;
+    private final Map<String, BitSet> slotsByType = new HashMap<>();
+
+    private final BitSet present;
+    private final BitSet sold;
+    private final BitSet held;
+    private final long[] holdExpiry;
+    private final BitSet changed;
+    private long version;
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+
+    private ShowSeatMap(Long showId, String[] rowLabels, int rowWidth, long version) {
+        this.showId = showId;
+        this.version = version;
+        this.rowLabels = rowLabels;
+        this.rowWidth = rowWidth;
+        int capacity = rowLabels.length * rowWidth;
+        this.seatIds = new long[capacity];
+        this.seatTypes = new String[capacity];
+        this.prices = new BigDecimal[capacity];
+        this.slotBySeatId = new HashMap<>(capacity * 2);
+        this.present = new BitSet(capacity);
+        this.sold = new BitSet(capacity);
+        this.held = new BitSet(capacity);
+        this.holdExpiry = new long[capacity];
+        this.changed = new BitSet(capacity);
+    }
+
+    /**
+     * Build a seat map from rows of
+     * (id, seatRow, seatNumber, seatType, price, isAvailable, isBlocked, blockedUntil),
+     * starting at the given version
+     */
+    public static ShowSeatMap of(Long showId, List<Object[]> layout, long initialVersion) {
+        TreeSet<String> rows = new TreeSet<>();
+        int width = 0;
+        for (Object[] seat : layout) {
+            rows.add((String) seat[1]);
+            width = Math.max(width, (Integer) seat[2]);
+        }
+
+        ShowSeatMap map = new ShowSeatMap(showId, rows.toArray(new String[0]), width, initialVersion);
+        for (Object[] seat : layout) {
+            int slot = map.slot((String) seat[1], (Integer) seat[2]);
+            long seatId = (Long) seat[0];
+            map.seatIds[slot] = seatId;
+            map.seatTypes[slot] = (String) seat[3];
+            map.prices[slot] = (BigDecimal) seat[4];
+            map.slotBySeatId.put(seatId, slot);
+            map.present.set(slot);
+            if (seat[3] != null) {
+                map.slotsByType.computeIfAbsent(((String) seat[3]).toUpperCase(), type -> new BitSet()).set(slot);
+            }
+
+            if (!Boolean.TRUE.equals(seat[5])) {
+                map.sold.set(slot);
+            } else if (Boolean.TRUE.equals(seat[6]) && seat[7] != null) {
+                map.held.set(slot);
+                map.holdExpiry[slot] = toEpochMillis((LocalDateTime) seat[7]);
+            }
+        }
+        return map;
+    }
+
+    public Long getShowId() {
+        return showId;
+    }
+
+    public void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public int getRowCount() {
+        return rowLabels.length;
+    }
+
+    public int getRowWidth() {
+        return rowWidth;
+    }
+
+    public String rowLabel(int rowIndex) {
+        return rowLabels[rowIndex];
+    }
+
+    public int slot(String row, int seatNumber) {
+        int rowIndex = Arrays.binarySearch(rowLabels, row);
+        if (rowIndex < 0 || seatNumber < 1 || seatNumber > rowWidth) {
+            return -1;
+        }
+        return rowIndex * rowWidth + (seatNumber - 1);
+    }
+
+    public boolean contains(Long seatId) {
+        return slotBySeatId.containsKey(seatId);
+    }
+
+    public int slotOf(Long seatId) {
+        Integer slot = slotBySeatId.get(seatId);
+        return slot != null ? slot : -1;
+    }
+
+    public long seatIdAt(int slot) {
+        return seatIds[slot];
+    }
+
+    public String seatTypeAt(int slot) {
+        return seatTypes[slot];
+    }
+
+    public BigDecimal priceAt(int slot) {
+        return prices[slot];
+    }
+
+    public String labelAt(int slot) {
+        return rowLabels[slot / rowWidth] + (slot % rowWidth + 1);
+    }
+
+    /**
+     * Atomically hold all given seats, or none of them
+     */
+    public synchronized boolean tryHold(Collection<Long> ids, long untilMillis, long nowMillis) {
+        int[] slots = slotsOf(ids);
+        if (slots == null) {
+            return false;
+        }
+        for (int slot : slots) {
+            if (!isFree(slot, nowMillis)) {
+                return false;
+            }
+        }
+        for (int slot : slots) {
+            held.set(slot);
+            holdExpiry[slot] = untilMillis;
+            changed.set(slot);
+        }
+        version++;
+        return true;
+    }
+
+    /**
+     * Find the best contiguous block of count free seats (optionally of one seat type) and hold it.
+     * Each row's free seats (masked by seat type) are a bitmask; every free run long enough is placed as close to the
+     * row centre as it allows and scored by centrality and distance from the preferred row, so the
+     * search costs one pass over the runs of each row. Returns the held seat IDs, or null.
+     */
+    public synchronized List<Long> allocate(int count, String seatType, long untilMillis, long nowMillis) {
+        BitSet typeSlots = seatType != null ? slotsByType.get(seatType.toUpperCase()) : present;
+        if (count < 1 || count > rowWidth || typeSlots == null) {
+            return null;
+        }
+        BitSet free = availableSlots(nowMillis);
+        free.and(typeSlots);
+        double preferredRow = (rowLabels.length - 1) * PREFERRED_ROW_DEPTH;
+        double rowCentre = (rowWidth - count) / 2.0;
+
+        int bestStart = -1;
+        double bestScore = Double.MAX_VALUE;
+        for (int row = 0; row < rowLabels.length; row++) {
+            int base = row * rowWidth;
+            BitSet rowFree = free.get(base, base + rowWidth);
+            double rowScore = Math.abs(row - preferredRow) / Math.max(1, rowLabels.length);
+            if (rowScore >= bestScore) {
+                continue;
+            }
+
+            for (int runStart = rowFree.nextSetBit(0); runStart >= 0; ) {
+                int runEnd = rowFree.nextClearBit(runStart);
+                if (runEnd - runStart >= count) {
+                    int start = (int) Math.round(Math.min(Math.max(rowCentre, runStart), runEnd - count));
+                    double score = rowScore + Math.abs(start - rowCentre) / rowWidth;
+                    if (score < bestScore) {
+                        bestScore = score;
+                        bestStart = base + start;
+                    }
+                }
+                runStart = runEnd < rowWidth ? rowFree.nextSetBit(runEnd) : -1;
+            }
+        }
+        if (bestStart < 0) {
+            return null;
+        }
+
+        List<Long> allocated = new ArrayList<>(count);
+        for (int slot = bestStart; slot < bestStart + count; slot++) {
+            held.set(slot);
+            holdExpiry[slot] = untilMillis;
+            changed.set(slot);
+            allocated.add(seatIds[slot]);
+        }
+        version++;
+        return allocated;
+    }
+
+    /**
+     * Drop the hold on the given seats; sold seats are left untouched
+     */
+    public synchronized void release(Collection<Long> ids) {
+        for (Long id : ids) {
+            Integer slot = slotBySeatId.get(id);
+            if (slot != null) {
+                held.clear(slot);
+                holdExpiry[slot] = 0L;
+                changed.set(slot);
+            }
+        }
+        version++;
+    }
+
+    /**
+     * Clear holds that still carry the given expiry; returns the seats actually released.
+     * Holds that were extended, re-taken or sold in the meantime are left alone.
+     */
+    public synchronized List<Long> expireHolds(Collection<Long> ids, long expiresAtMillis) {
+        List<Long> released = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Integer slot = slotBySeatId.get(id);
+            if (slot != null && held.get(slot) && holdExpiry[slot] == expiresAtMillis) {
+                held.clear(slot);
+                holdExpiry[slot] = 0L;
+                if (!sold.get(slot)) {
+                    released.add(id);
+                    changed.set(slot);
+                }
+            }
+        }
+        if (!released.isEmpty()) {
+            version++;
+        }
+        return released;
+    }
+
+    /**
+     * Move holds that still carry the old expiry to the new one, all or nothing
+     */
+    public synchronized boolean extendHolds(Collection<Long> ids, long fromMillis, long toMillis) {
+        int[] slots = slotsOf(ids);
+        if (slots == null) {
+            return false;
+        }
+        for (int slot : slots) {
+            if (sold.get(slot) || !held.get(slot) || holdExpiry[slot] != fromMillis) {
+                return false;
+            }
+        }
+        for (int slot : slots) {
+            holdExpiry[slot] = toMillis;
+        }
+        return true;
+    }
+
+    public synchronized void markSold(Collection<Long> ids) {
+        for (Long id : ids) {
+            Integer slot = slotBySeatId.get(id);
+            if (slot != null) {
+                sold.set(slot);
+                held.clear(slot);
+                holdExpiry[slot] = 0L;
+                changed.set(slot);
+            }
+        }
+        version++;
+    }
+
+    public synchronized void markAvailable(Collection<Long> ids) {
+        for (Long id : ids) {
+            Integer slot = slotBySeatId.get(id);
+            if (slot != null) {
+                sold.clear(slot);
+                held.clear(slot);
+                holdExpiry[slot] = 0L;
+                changed.set(slot);
+            }
+        }
+        version++;
+    }
+
+    /**
+     * True if every seat exists and can be held right now
+     */
+    public synchronized boolean areAvailable(Collection<Long> ids, long nowMillis) {
+        int[] slots = slotsOf(ids);
+        if (slots == null) {
+            return false;
+        }
+        for (int slot : slots) {
+            if (!isFree(slot, nowMillis)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if every seat exists and is under an unexpired hold
+     */
+    public synchronized boolean areHeld(Collection<Long> ids, long nowMillis) {
+        int[] slots = slotsOf(ids);
+        if (slots == null) {
+            return false;
+        }
+        for (int slot : slots) {
+            if (sold.get(slot) || !held.get(slot) || holdExpiry[slot] <= nowMillis) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Snapshot of the slots that can currently be held
+     */
+    public synchronized BitSet availableSlots(long nowMillis) {
+        BitSet free = (BitSet) present.clone();
+        free.andNot(sold);
+        for (int slot = held.nextSetBit(0); slot >= 0; slot = held.nextSetBit(slot + 1)) {
+            if (holdExpiry[slot] > nowMillis) {
+                free.clear(slot);
+            }
+        }
+        return free;
+    }
+
+    public synchronized int availableCount(long nowMillis) {
+        return availableSlots(nowMillis).cardinality();
+    }
+
+    public synchronized boolean isSold(int slot) {
+        return sold.get(slot);
+    }
+
+    public synchronized boolean isHeld(int slot, long nowMillis) {
+        return held.get(slot) && !sold.get(slot) && holdExpiry[slot] > nowMillis;
+    }
+
+    /**
+     * Current state of the seats changed since the last drain, tagged with the version it reflects
+     */
+    public synchronized Changes drainChanges(long nowMillis) {
+        Changes changes = describe(changed, nowMillis);
+        changed.clear();
+        return changes;
+    }
+
+    /**
+     * Current state of every seat, tagged with the version it reflects
+     */
+    public synchronized Changes snapshot(long nowMillis) {
+        return describe(present, nowMillis);
+    }
+
+    public int presentCount() {
+        return present.cardinality();
+    }
+
+    private Changes describe(BitSet slots, long nowMillis) {
+        List<Long> ids = new ArrayList<>(slots.cardinality());
+        List<SeatState> states = new ArrayList<>(slots.cardinality());
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            ids.add(seatIds[slot]);
+            states.add(sold.get(slot) ? SeatState.SOLD
+                    : isHeld(slot, nowMillis) ? SeatState.HELD : SeatState.AVAILABLE);
+        }
+        return new Changes(version, ids, states);
+    }
+
+    private boolean isFree(int slot, long nowMillis) {
+        return present.get(slot) && !sold.get(slot)
+                && (!held.get(slot) || holdExpiry[slot] <= nowMillis);
+    }
+
+    private int[] slotsOf(Collection<Long> ids) {
+        int[] slots = new int[ids.size()];
+        int i = 0;
+        for (Long id : ids) {
+            Integer slot = slotBySeatId.get(id);
+            if (slot == null) {
+                return null;
+            }
+            slots[i++] = slot;
+        }
+        return slots;
+    }
+
+    public enum SeatState { AVAILABLE, HELD, SOLD }
+
+    public record Changes(long version, List<Long> seatIds, List<SeatState> states) {
+
+        public boolean isEmpty() {
+            return seatIds.isEmpty();
+        }
+    }
+
+    static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -3,31 +3,41 @@ package com.moviebooking.service;
 import com.moviebooking.dto.BookingSummaryDTO;
 import com.moviebooking.dto.SeatDTO;
 import com.moviebooking.dto.ShowDTO;
-import com.moviebooking.entity.Seat;
 import com.moviebooking.entity.Show;
-import com.moviebooking.repository.SeatRepository;
+import com.moviebooking.repository.BookingRepository;
+import com.moviebooking.repository.ScreenSeatRepository;
 import com.moviebooking.repository.ShowRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 @Transactional(readOnly = true)
 public class ShowService {
 
     private final ShowRepository showRepository;
-    private final SeatRepository seatRepository;
+    private final ScreenSeatRepository screenSeatRepository;
+    private final BookingRepository bookingRepository;
+    private final SeatInventory seatInventory;
+    private final PricingEngine pricingEngine;
+    private final PromoCodeService promoCodeService;
+    private final QuoteSigner quoteSigner;
 
     public Page<Show> getAllShows(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("showDate", "showTime"));
@@ -61,7 +71,17 @@ public class ShowService {
 
     @Transactional
     public Show createShow(Show show) {
-        return showRepository.save(show);
+        Show savedShow = showRepository.save(show);
+        
+        // Seats come from the screen's layout template; state rows are only written once a seat is held or sold
+        if (savedShow.getVenue() != null && savedShow.getScreenName() != null) {
+            int seats = screenSeatRepository.countLayoutSeats(savedShow.getVenue().getId(), savedShow.getScreenName());
+            if (seats > 0) {
+                savedShow.setTotalSeats(seats);
+                savedShow.setAvailableSeats(seats);
+            }
+        }
+        return savedShow;
     }
 
     @Transactional
@@ -80,7 +100,14 @@ public class ShowService {
         existingShow.setAvailableSeats(updatedShow.getAvailableSeats());
         existingShow.setIsActive(updatedShow.getIsActive());
         
-        return showRepository.save(existingShow);
+        // Seat prices derive from the show price, so cached inventory must be rebuilt; only after commit,
+        // or a concurrent read could reload the old row and cache it again
+        Show saved = showRepository.save(existingShow);
+        afterCommit(() -> {
+            seatInventory.evict(id);
+            pricingEngine.invalidate(id);
+        });
+        return saved;
     }
 
     @Transactional
@@ -88,7 +115,28 @@ public class ShowService {
         if (!showRepository.existsById(id)) {
             throw new RuntimeException("Show not found with id: " + id);
         }
+        if (bookingRepository.existsByShowId(id)) {
+            throw new RuntimeException("Show has bookings and cannot be deleted; cancel it instead");
+        }
         showRepository.deleteById(id);
+        afterCommit(() -> {
+            seatInventory.evict(id);
+            pricingEngine.invalidate(id);
+        });
+    }
+
+    /**
+     * Apply a booking (negative delta) or cancellation (positive delta) to the availability counter
+     */
+    @Transactional
+    public void adjustAvailableSeats(Long showId, int delta) {
+        int updated = delta < 0
+                ? showRepository.decrementAvailableSeats(showId, -delta)
+                : showRepository.incrementAvailableSeats(showId, delta);
+        if (updated == 0) {
+            // Counter has drifted out of range; leave it for SeatCounterReconciler
+            log.warn("Could not apply availability delta {} to show {}", delta, showId);
+        }
     }
 
     public long getTotalShowsCount() {
@@ -108,61 +156,53 @@ public class ShowService {
         }
     }
 
+    public BookingSummaryDTO calculateBookingSummary(SeatHold hold, String promoCode) {
+        return calculateBookingSummary(hold.showId(), hold.seatIds(), promoCode);
+    }
+
     public BookingSummaryDTO calculateBookingSummary(Long showId, List<Long> seatIds, String promoCode) {
         Show show = showRepository.findById(showId)
                 .orElseThrow(() -> new RuntimeException("Show not found"));
 
-        List<Seat> seats = seatRepository.findByIdInAndShowId(seatIds, showId);
+        // Seat details come from the in-memory layout rather than a seats query
+        List<SeatDTO> seatDTOs = seatInventory.describe(showId, seatIds, show.getPrice());
         
-        if (seats.size() != seatIds.size()) {
+        if (seatDTOs == null || seatDTOs.size() != seatIds.size()) {
             throw new RuntimeException("Some seats not found");
         }
 
-        // Calculate pricing
-        BigDecimal subtotal = seats.stream()
-                .map(seat -> seat.getPrice() != null ? seat.getPrice() : show.getPrice())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Fees and taxes come from the show's compiled price table; an unusable promo code is ignored
+        PriceTable.Quote quote = pricingEngine.quote(showId, show.getPrice(), seatIds,
+                promoCodeService.lookup(promoCode));
 
-        // Convenience fee (2% of subtotal, minimum Rs. 20)
-        BigDecimal convenienceFee = subtotal.multiply(BigDecimal.valueOf(0.02));
-        if (convenienceFee.compareTo(BigDecimal.valueOf(20)) < 0) {
-            convenienceFee = BigDecimal.valueOf(20);
-        }
-
-        // Taxes (18% GST)
-        BigDecimal taxes = subtotal.multiply(BigDecimal.valueOf(0.18));
-
-        // Discount (mock promo code logic)
-        BigDecimal discount = BigDecimal.ZERO;
-        if ("SAVE10".equals(promoCode)) {
-            discount = subtotal.multiply(BigDecimal.valueOf(0.10)); // 10% discount
-        } else if ("FIRST50".equals(promoCode)) {
-            discount = BigDecimal.valueOf(50); // Rs. 50 flat discount
-        }
-
-        BigDecimal totalAmount = subtotal.add(convenienceFee).add(taxes).subtract(discount);
-
-        // Convert entities to DTOs
-        List<SeatDTO> seatDTOs = seats.stream()
-                .map(seat -> SeatDTO.builder()
-                        .id(seat.getId())
-                        .seatRow(seat.getSeatRow())
-                        .seatNumber(seat.getSeatNumber())
-                        .seatType(seat.getSeatType())
-                        .price(seat.getPrice() != null ? seat.getPrice() : show.getPrice())
-                        .displayName(seat.getSeatRow() + seat.getSeatNumber())
-                        .build())
-                .collect(Collectors.toList());
+        // The signed total lets checkout skip the show lookup and repricing
+        QuoteSigner.SignedQuote signed = quoteSigner.sign(showId, seatIds, quote.totalPaise(), quote.promoCode());
 
         return BookingSummaryDTO.builder()
                 .selectedSeats(seatDTOs)
-                .subtotal(subtotal)
-                .taxes(taxes)
-                .convenienceFee(convenienceFee)
-                .discount(discount)
-                .totalAmount(totalAmount)
-                .promoCode(promoCode)
-                .totalTickets(seats.size())
+                .subtotal(PriceTable.toRupees(quote.subtotalPaise()))
+                .taxes(PriceTable.toRupees(quote.taxPaise()))
+                .convenienceFee(PriceTable.toRupees(quote.feePaise()))
+                .discount(PriceTable.toRupees(quote.discountPaise()))
+                .totalAmount(PriceTable.toRupees(quote.totalPaise()))
+                .promoCode(quote.promoCode())
+                .totalTickets(seatDTOs.size())
+                .quoteToken(signed.token())
+                .quoteExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(signed.expiresAtMillis()),
+                        ZoneId.systemDefault()))
                 .build();
     }
-}
\ No newline at end of file
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
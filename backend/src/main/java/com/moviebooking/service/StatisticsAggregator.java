@@ -0,0 +1,272 @@
+package com.moviebooking.service;
+
+import com.moviebooking.entity.StatisticsSnapshot;
+import com.moviebooking.repository.BookingRepository;
+import com.moviebooking.repository.MovieRepository;
+import com.moviebooking.repository.StatisticsSnapshotRepository;
+import com.moviebooking.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dashboard statistics kept as in-memory counters.
+ * <p>
+ * Booking, cancellation, payment, user and movie events adjust the counters when their
+ * transaction commits, so reading the dashboard never touches the bookings table. Revenue
+ * follows the same rule as before: confirmed bookings whose payment completed, in paise.
+ * On startup the last snapshot is restored and then replaced by a rebuild from the database;
+ * the rebuild is repeated periodically to pick up writes made by other nodes or by bulk
+ * statements that do not report here. Snapshots are persisted periodically.
+ */
+@Slf4j
+@Service
+public class StatisticsAggregator {
+
+    private static final String INSERT_SNAPSHOT =
+            "INSERT INTO statistics_snapshots (metric, dimension, metric_value, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final UserRepository userRepository;
+    private final MovieRepository movieRepository;
+    private final BookingRepository bookingRepository;
+    private final ShowDimensions showDimensions;
+    private final StatisticsSnapshotRepository statisticsSnapshotRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private volatile Totals totals = new Totals();
+
+    @Value("${booking.stats.daily-retention-days:90}")
+    private int dailyRetentionDays;
+
+    public StatisticsAggregator(UserRepository userRepository,
+                                MovieRepository movieRepository,
+                                BookingRepository bookingRepository,
+                                ShowDimensions showDimensions,
+                                StatisticsSnapshotRepository statisticsSnapshotRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.movieRepository = movieRepository;
+        this.bookingRepository = bookingRepository;
+        this.showDimensions = showDimensions;
+        this.statisticsSnapshotRepository = statisticsSnapshotRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * A booking was created; paid means it already counts towards revenue
+     */
+    public void recordBooking(Long showId, LocalDateTime bookingDate, BigDecimal amount, boolean paid) {
+        String city = paid ? cityOf(showId) : null;
+        long paise = PriceTable.toPaise(amount);
+        afterCommit(() -> {
+            Totals current = totals;
+            current.bookings.increment();
+            if (paid) {
+                current.addRevenue(bookingDate.toLocalDate(), city, paise);
+            }
+        });
+    }
+
+    /**
+     * A booking started counting towards revenue (its payment completed)
+     */
+    public void recordRevenue(Long showId, LocalDateTime bookingDate, BigDecimal amount) {
+        String city = cityOf(showId);
+        long paise = PriceTable.toPaise(amount);
+        afterCommit(() -> totals.addRevenue(bookingDate.toLocalDate(), city, paise));
+    }
+
+    /**
+     * A booking stopped counting towards revenue (cancelled or payment reversed)
+     */
+    public void reverseRevenue(Long showId, LocalDateTime bookingDate, BigDecimal amount) {
+        String city = cityOf(showId);
+        long paise = PriceTable.toPaise(amount);
+        afterCommit(() -> totals.addRevenue(bookingDate.toLocalDate(), city, -paise));
+    }
+
+    public void recordUserCreated() {
+        afterCommit(() -> totals.users.increment());
+    }
+
+    public void recordUserDeleted() {
+        afterCommit(() -> totals.users.decrement());
+    }
+
+    public void recordMovieCreated() {
+        afterCommit(() -> totals.movies.increment());
+    }
+
+    /**
+     * Current statistics; cost depends on the retention window and number of cities, not on table sizes
+     */
+    public Map<String, Object> dashboard() {
+        Totals current = totals;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalUsers", current.users.sum());
+        stats.put("totalMovies", current.movies.sum());
+        stats.put("totalBookings", current.bookings.sum());
+        stats.put("totalRevenue", PriceTable.toRupees(current.revenuePaise.sum()));
+
+        Map<String, BigDecimal> byDay = new TreeMap<>(Comparator.reverseOrder());
+        LocalDate oldest = LocalDate.now().minusDays(dailyRetentionDays - 1L);
+        current.dailyRevenuePaise.forEach((day, paise) -> {
+            if (!day.isBefore(oldest)) {
+                byDay.put(day.toString(), PriceTable.toRupees(paise.sum()));
+            }
+        });
+        Map<String, BigDecimal> byCity = new TreeMap<>();
+        current.cityRevenuePaise.forEach((city, paise) -> byCity.put(city, PriceTable.toRupees(paise.sum())));
+        stats.put("revenueByDay", byDay);
+        stats.put("revenueByCity", byCity);
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        restoreSnapshot();
+        rebuild();
+    }
+
+    /**
+     * Recount everything from the database and swap the result in.
+     * Events committed while the queries run may be missed or counted twice; the next rebuild corrects them.
+     */
+    @Scheduled(fixedDelayString = "${booking.stats.rebuild-interval-ms:3600000}",
+               initialDelayString = "${booking.stats.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        Totals rebuilt = transactionTemplate.execute(status -> {
+            Totals fresh = new Totals();
+            fresh.users.add(userRepository.count());
+            fresh.movies.add(movieRepository.count());
+            fresh.bookings.add(bookingRepository.count());
+            fresh.revenuePaise.add(PriceTable.toPaise(bookingRepository.getTotalRevenue().orElse(BigDecimal.ZERO)));
+
+            LocalDateTime from = LocalDate.now().minusDays(dailyRetentionDays - 1L).atStartOfDay();
+            for (Object[] row : bookingRepository.sumRevenueByDaySince(from)) {
+                fresh.counter(fresh.dailyRevenuePaise, (LocalDate) row[0]).add(PriceTable.toPaise((BigDecimal) row[1]));
+            }
+            for (Object[] row : bookingRepository.sumRevenueByCity()) {
+                String city = row[0] != null ? (String) row[0] : ShowDimensions.UNKNOWN_CITY;
+                fresh.counter(fresh.cityRevenuePaise, city).add(PriceTable.toPaise((BigDecimal) row[1]));
+            }
+            return fresh;
+        });
+        totals = rebuilt;
+        log.info("Rebuilt dashboard statistics in {} ms", System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Persist the current counters, replacing the previous snapshot
+     */
+    @Scheduled(fixedDelayString = "${booking.stats.snapshot-interval-ms:300000}",
+               initialDelayString = "${booking.stats.snapshot-interval-ms:300000}")
+    public synchronized void snapshot() {
+        Totals current = totals;
+        LocalDate oldest = LocalDate.now().minusDays(dailyRetentionDays - 1L);
+        current.dailyRevenuePaise.keySet().removeIf(day -> day.isBefore(oldest));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {"USERS", "", current.users.sum(), now, now});
+        rows.add(new Object[] {"MOVIES", "", current.movies.sum(), now, now});
+        rows.add(new Object[] {"BOOKINGS", "", current.bookings.sum(), now, now});
+        rows.add(new Object[] {"REVENUE", "", current.revenuePaise.sum(), now, now});
+        current.dailyRevenuePaise.forEach((day, paise) ->
+                rows.add(new Object[] {"DAY_REVENUE", day.toString(), paise.sum(), now, now}));
+        current.cityRevenuePaise.forEach((city, paise) ->
+                rows.add(new Object[] {"CITY_REVENUE", city, paise.sum(), now, now}));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                statisticsSnapshotRepository.deleteAllInBatch();
+                jdbcTemplate.batchUpdate(INSERT_SNAPSHOT, rows);
+            });
+            log.debug("Persisted statistics snapshot with {} values", rows.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not persist statistics snapshot", e);
+        }
+    }
+
+    private void restoreSnapshot() {
+        List<StatisticsSnapshot> values = statisticsSnapshotRepository.findAll();
+        if (values.isEmpty()) {
+            return;
+        }
+        Totals restored = new Totals();
+        for (StatisticsSnapshot value : values) {
+            long amount = value.getMetricValue();
+            switch (value.getMetric()) {
+                case "USERS" -> restored.users.add(amount);
+                case "MOVIES" -> restored.movies.add(amount);
+                case "BOOKINGS" -> restored.bookings.add(amount);
+                case "REVENUE" -> restored.revenuePaise.add(amount);
+                case "DAY_REVENUE" -> restored.counter(restored.dailyRevenuePaise, LocalDate.parse(value.getDimension())).add(amount);
+                case "CITY_REVENUE" -> restored.counter(restored.cityRevenuePaise, value.getDimension()).add(amount);
+                default -> log.debug("Ignoring unknown statistics metric {}", value.getMetric());
+            }
+        }
+        totals = restored;
+        log.info("Restored dashboard statistics snapshot");
+    }
+
+    private String cityOf(Long showId) {
+        return showDimensions.of(showId).city();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * One generation of counters; a rebuild replaces the whole set at once
+     */
+    private static final class Totals {
+        private final LongAdder users = new LongAdder();
+        private final LongAdder movies = new LongAdder();
+        private final LongAdder bookings = new LongAdder();
+        private final LongAdder revenuePaise = new LongAdder();
+        private final ConcurrentMap<LocalDate, LongAdder> dailyRevenuePaise = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, LongAdder> cityRevenuePaise = new ConcurrentHashMap<>();
+
+        private void addRevenue(LocalDate day, String city, long paise) {
+            revenuePaise.add(paise);
+            counter(dailyRevenuePaise, day).add(paise);
+            counter(cityRevenuePaise, city).add(paise);
+        }
+
+        private <K> LongAdder counter(ConcurrentMap<K, LongAdder> counters, K key) {
+            return counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+    }
+}
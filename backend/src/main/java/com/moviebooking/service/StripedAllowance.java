@@ -0,0 +1,75 @@
+package com.moviebooking.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A non-negative count of permits spread over several cells so concurrent takers rarely
+ * contend on the same one. Taking never drives a cell below zero, so the permits handed
+ * out can never exceed the permits put in.
+ */
+public final class StripedAllowance {
+
+    // Cells sit a cache line apart to avoid false sharing
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+
+    public StripedAllowance(int stripes) {
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+    }
+
+    /**
+     * Take one permit, starting from a random stripe and moving on when it is empty
+     */
+    public boolean tryTake() {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int index = ((start + i) % stripes) * PADDING;
+            long available = cells.get(index);
+            while (available > 0) {
+                if (cells.compareAndSet(index, available, available - 1)) {
+                    return true;
+                }
+                available = cells.get(index);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add permits, spread evenly over the stripes
+     */
+    public void add(long permits) {
+        long share = permits / stripes;
+        long remainder = permits % stripes;
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            long amount = share + (i < remainder ? 1 : 0);
+            if (amount > 0) {
+                cells.addAndGet(((start + i) % stripes) * PADDING, amount);
+            }
+        }
+    }
+
+    /**
+     * Take every remaining permit
+     */
+    public long drain() {
+        long drained = 0L;
+        for (int i = 0; i < stripes; i++) {
+            drained += cells.getAndSet(i * PADDING, 0L);
+        }
+        return drained;
+    }
+
+    public long available() {
+        long available = 0L;
+        for (int i = 0; i < stripes; i++) {
+            available += cells.get(i * PADDING);
+        }
+        return available;
+    }
+}
@@ -0,0 +1,347 @@
+package com.moviebooking.service;
+
+import com.moviebooking.dto.WaitlistEntryResponse;
+import com.moviebooking.entity.Show;
+import com.moviebooking.entity.WaitlistEntry;
+import com.moviebooking.repository.ShowRepository;
+import com.moviebooking.repository.WaitlistEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-show waitlists served first come, first served.
+ * <p>
+ * Each show's queue lives in memory. Whenever seats are freed (a cancellation, an expired or
+ * released hold) the queue is walked in join order against the show's in-memory seat map, and every
+ * entry whose seat count and seat type fit is offered a block of seats as an ordinary time-boxed
+ * hold, so a burst of cancellations is cleared in one pass. An entry that does not fit keeps its
+ * place for the next round. The offered hold belongs to the waiting user and is booked through the
+ * normal checkout; if it lapses the seats go to the next entry. Entries are persisted so queues
+ * survive a restart.
+ */
+@Slf4j
+@Service
+public class WaitlistService {
+
+    private static final List<String> OPEN = List.of("WAITING", "OFFERED");
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final ShowRepository showRepository;
+    private final SeatService seatService;
+    private final SeatInventory seatInventory;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, ShowQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, Long> offeredHolds = new ConcurrentHashMap<>(); // holdId -> showId
+
+    @Value("${booking.waitlist.offer-minutes:10}")
+    private int offerMinutes;
+
+    public WaitlistService(WaitlistEntryRepository waitlistEntryRepository,
+                           ShowRepository showRepository,
+                           SeatService seatService,
+                           SeatInventory seatInventory,
+                           PlatformTransactionManager transactionManager) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.showRepository = showRepository;
+        this.seatService = seatService;
+        this.seatInventory = seatInventory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Join a show's waitlist; seats are offered straight away if a matching block is already free
+     */
+    public WaitlistEntry join(Long showId, Long userId, int seatCount, String seatType) {
+        Show show = showRepository.findById(showId)
+                .orElseThrow(() -> new RuntimeException("Show not found"));
+        if (!Boolean.TRUE.equals(show.getIsActive())
+                || !LocalDateTime.of(show.getShowDate(), show.getShowTime()).isAfter(LocalDateTime.now())) {
+            throw new RuntimeException("Show is not open for booking");
+        }
+        if (waitlistEntryRepository.existsByShowIdAndUserIdAndStatusIn(showId, userId, OPEN)) {
+            throw new RuntimeException("You are already on the waitlist for this show");
+        }
+
+        WaitlistEntry entry = waitlistEntryRepository.save(WaitlistEntry.builder()
+                .showId(showId)
+                .userId(userId)
+                .seatCount(seatCount)
+                .seatType(seatType)
+                .build());
+        enqueue(entry);
+        match(showId);
+        return waitlistEntryRepository.findById(entry.getId()).orElse(entry);
+    }
+
+    /**
+     * Leave a waitlist; an outstanding offer is released to the next entry
+     */
+    public void leave(Long entryId, Long userId) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId)
+                .orElseThrow(() -> new RuntimeException("Waitlist entry not found"));
+        if (!entry.getUserId().equals(userId)) {
+            throw new RuntimeException("Access denied");
+        }
+        if (!close(entry.getId(), "CANCELLED")) {
+            throw new RuntimeException("Waitlist entry is already closed");
+        }
+
+        ShowQueue queue = queues.get(entry.getShowId());
+        if (queue != null) {
+            synchronized (queue) {
+                queue.waiting.removeIf(waiter -> waiter.entryId().equals(entryId));
+                queue.offers.values().removeIf(offer -> offer.waiter().entryId().equals(entryId));
+            }
+        }
+        if (entry.getHoldId() != null && offeredHolds.remove(entry.getHoldId()) != null) {
+            seatService.releaseHold(entry.getHoldId(), entry.getUserId());
+            match(entry.getShowId());
+        }
+    }
+
+    /**
+     * The user's waitlist entries, newest first, with their queue position while waiting
+     */
+    public List<WaitlistEntryResponse> findForUser(Long userId) {
+        List<WaitlistEntryResponse> responses = new ArrayList<>();
+        for (WaitlistEntry entry : waitlistEntryRepository.findByUserIdOrderByIdDesc(userId)) {
+            Integer position = null;
+            List<Long> seatIds = null;
+            ShowQueue queue = queues.get(entry.getShowId());
+            if (queue != null && "WAITING".equals(entry.getStatus())) {
+                position = queue.positionOf(entry.getId());
+            } else if (queue != null && "OFFERED".equals(entry.getStatus())) {
+                seatIds = queue.seatIdsOffered(entry.getHoldId());
+            }
+            responses.add(WaitlistEntryResponse.builder()
+                    .id(entry.getId())
+                    .showId(entry.getShowId())
+                    .seatCount(entry.getSeatCount())
+                    .seatType(entry.getSeatType())
+                    .status(entry.getStatus())
+                    .position(position)
+                    .holdId("OFFERED".equals(entry.getStatus()) ? entry.getHoldId() : null)
+                    .seatIds(seatIds)
+                    .offerExpiresAt("OFFERED".equals(entry.getStatus()) ? entry.getOfferExpiresAt() : null)
+                    .joinedAt(entry.getCreatedAt())
+                    .build());
+        }
+        return responses;
+    }
+
+    /**
+     * Seats of a show were freed; they are offered once the surrounding transaction commits
+     */
+    public void seatsFreed(Long showId) {
+        if (!queues.containsKey(showId)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    match(showId);
+                }
+            });
+        } else {
+            match(showId);
+        }
+    }
+
+    /**
+     * A hold was booked; if it was a waitlist offer the entry is fulfilled
+     */
+    public void holdBooked(String holdId) {
+        Long showId = offeredHolds.remove(holdId);
+        if (showId != null) {
+            closeOffer(showId, holdId, "FULFILLED");
+        }
+    }
+
+    /**
+     * A hold was released by its holder; a declined offer passes to the next entry
+     */
+    public void holdReleased(String holdId) {
+        Long showId = offeredHolds.remove(holdId);
+        if (showId != null) {
+            closeOffer(showId, holdId, "CANCELLED");
+            match(showId);
+        }
+    }
+
+    /**
+     * Close every entry of a cancelled show
+     */
+    public void closeShow(Long showId) {
+        transactionTemplate.executeWithoutResult(status -> waitlistEntryRepository.closeAllForShow(showId));
+        ShowQueue queue = queues.remove(showId);
+        if (queue != null) {
+            synchronized (queue) {
+                queue.offers.keySet().forEach(offeredHolds::remove);
+            }
+        }
+    }
+
+    /**
+     * Offer freed seats and lapse expired offers for every show with a waitlist.
+     * Catches seats freed by hold expiry, which does not report here.
+     */
+    @Scheduled(fixedDelayString = "${booking.waitlist.match-interval-ms:1000}")
+    public void matchAll() {
+        for (Long showId : queues.keySet()) {
+            try {
+                match(showId);
+            } catch (RuntimeException e) {
+                log.warn("Waitlist matching failed for show {}", showId, e);
+            }
+            queues.computeIfPresent(showId, (id, queue) -> {
+                synchronized (queue) {
+                    return queue.isEmpty() ? null : queue;
+                }
+            });
+        }
+    }
+
+    /**
+     * Rebuild the queues; offers made before a restart lost their hold tokens, so they go back to waiting
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        Integer requeued = transactionTemplate.execute(status -> waitlistEntryRepository.requeueOffers());
+        List<WaitlistEntry> open = waitlistEntryRepository.findOpen();
+        open.forEach(this::enqueue);
+        log.info("Waitlist recovery: {} open entries across {} shows ({} offers requeued)",
+                open.size(), queues.size(), requeued);
+    }
+
+    /**
+     * Walk a show's queue in join order and offer every entry that fits the free seats
+     */
+    private void match(Long showId) {
+        ShowQueue queue = queues.get(showId);
+        if (queue == null) {
+            return;
+        }
+        synchronized (queue) {
+            lapseExpiredOffers(queue);
+            if (queue.waiting.isEmpty()) {
+                return;
+            }
+            int available = seatInventory.availableCount(showId);
+            Iterator<Waiter> waiters = queue.waiting.iterator();
+            while (available > 0 && waiters.hasNext()) {
+                Waiter waiter = waiters.next();
+                if (waiter.seatCount() > available) {
+                    continue;
+                }
+                Optional<SeatHold> allocated = seatService.allocateSeats(showId, waiter.seatCount(), waiter.seatType(),
+                        offerMinutes, waiter.userId());
+                if (allocated.isEmpty()) {
+                    // No adjacent block of this size or type; keeps its place
+                    continue;
+                }
+                SeatHold hold = allocated.get();
+                waiters.remove();
+                Integer offered = transactionTemplate.execute(status ->
+                        waitlistEntryRepository.markOffered(waiter.entryId(), hold.holdId(), hold.expiresAt()));
+                if (offered == null || offered == 0) {
+                    // Closed in the meantime
+                    seatService.releaseHold(hold.holdId(), waiter.userId());
+                    continue;
+                }
+                queue.offers.put(hold.holdId(), new Offer(waiter, hold));
+                offeredHolds.put(hold.holdId(), showId);
+                available -= waiter.seatCount();
+                log.debug("Offered {} seats of show {} to waitlist entry {}", waiter.seatCount(), showId, waiter.entryId());
+            }
+        }
+    }
+
+    private void lapseExpiredOffers(ShowQueue queue) {
+        Iterator<Offer> offers = queue.offers.values().iterator();
+        while (offers.hasNext()) {
+            Offer offer = offers.next();
+            if (offer.hold().isExpired()) {
+                offers.remove();
+                offeredHolds.remove(offer.hold().holdId());
+                close(offer.waiter().entryId(), "EXPIRED");
+            }
+        }
+    }
+
+    private void closeOffer(Long showId, String holdId, String status) {
+        ShowQueue queue = queues.get(showId);
+        if (queue == null) {
+            return;
+        }
+        Offer offer;
+        synchronized (queue) {
+            offer = queue.offers.remove(holdId);
+        }
+        if (offer != null) {
+            close(offer.waiter().entryId(), status);
+        }
+    }
+
+    private boolean close(Long entryId, String status) {
+        Integer closed = transactionTemplate.execute(tx -> waitlistEntryRepository.close(entryId, status));
+        return closed != null && closed > 0;
+    }
+
+    private void enqueue(WaitlistEntry entry) {
+        Waiter waiter = new Waiter(entry.getId(), entry.getUserId(), entry.getSeatCount(), entry.getSeatType());
+        queues.compute(entry.getShowId(), (id, queue) -> {
+            ShowQueue target = queue != null ? queue : new ShowQueue();
+            synchronized (target) {
+                target.waiting.addLast(waiter);
+            }
+            return target;
+        });
+    }
+
+    private record Waiter(Long entryId, Long userId, int seatCount, String seatType) {
+    }
+
+    private record Offer(Waiter waiter, SeatHold hold) {
+    }
+
+    /**
+     * One show's waiting entries in join order and its outstanding offers by hold token; guarded by itself
+     */
+    private static final class ShowQueue {
+        private final Deque<Waiter> waiting = new ArrayDeque<>();
+        private final Map<String, Offer> offers = new HashMap<>();
+
+        private boolean isEmpty() {
+            return waiting.isEmpty() && offers.isEmpty();
+        }
+
+        private synchronized Integer positionOf(Long entryId) {
+            int position = 1;
+            for (Waiter waiter : waiting) {
+                if (waiter.entryId().equals(entryId)) {
+                    return position;
+                }
+                position++;
+            }
+            return null;
+        }
+
+        private synchronized List<Long> seatIdsOffered(String holdId) {
+            Offer offer = holdId != null ? offers.get(holdId) : null;
+            return offer != null ? offer.hold().seatIds() : null;
+        }
+    }
+}
@@ -5,10 +5,21 @@
 CREATE DATABASE IF NOT EXISTS moviebooking;
 USE moviebooking;
 
--- Drop tables if they exist (for clean setup)
+-- Drop tables if they exist (for clean setup; children before the tables they reference)
+DROP TABLE IF EXISTS idempotency_keys;
+DROP TABLE IF EXISTS seat_holds;
+DROP TABLE IF EXISTS waitlist_entries;
+DROP TABLE IF EXISTS statistics_snapshots;
+DROP TABLE IF EXISTS refunds;
+DROP TABLE IF EXISTS show_cancellations;
+DROP TABLE IF EXISTS promo_user_usage;
+DROP TABLE IF EXISTS promo_redemptions;
+DROP TABLE IF EXISTS promo_codes;
+DROP TABLE IF EXISTS pricing_rules;
 DROP TABLE IF EXISTS booking_seats;
 DROP TABLE IF EXISTS bookings;
 DROP TABLE IF EXISTS seats;
+DROP TABLE IF EXISTS screen_seats;
 DROP TABLE IF EXISTS shows;
 DROP TABLE IF EXISTS movies;
 DROP TABLE IF EXISTS venues;
@@ -112,6 +123,7 @@ CREATE TABLE shows (
     available_seats INT DEFAULT 0,
     total_seats INT DEFAULT 0,
     is_active BOOLEAN DEFAULT TRUE,
+    version BIGINT NOT NULL DEFAULT 0, -- Optimistic lock for concurrent show edits
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (movie_id) REFERENCES movies(id) ON DELETE CASCADE,
@@ -119,20 +131,36 @@ CREATE TABLE shows (
     UNIQUE KEY unique_show (movie_id, venue_id, show_date, show_time, screen_name)
 );
 
--- Seats table
-CREATE TABLE seats (
+-- Screen layout templates (shared by every show on a screen)
+CREATE TABLE screen_seats (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    show_id BIGINT NOT NULL,
+    venue_id BIGINT NOT NULL,
+    screen_name VARCHAR(50) NOT NULL, -- Screen 1, Screen 2, etc.
     seat_row VARCHAR(5) NOT NULL, -- A, B, C, etc.
     seat_number INT NOT NULL, -- 1, 2, 3, etc.
     seat_type VARCHAR(20) DEFAULT 'REGULAR', -- REGULAR, PREMIUM, VIP
-    price DECIMAL(10, 2),
+    price_tier DECIMAL(10, 2) NOT NULL DEFAULT 0, -- Surcharge on top of the show price
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (venue_id) REFERENCES venues(id) ON DELETE CASCADE,
+    UNIQUE KEY unique_screen_seat (venue_id, screen_name, seat_row, seat_number)
+);
+
+-- Seats table (per-show seat state; sparse: a row exists only once the seat has been held or sold,
+-- every other seat of the show's screen layout is free)
+CREATE TABLE seats (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    show_id BIGINT NOT NULL,
+    screen_seat_id BIGINT NOT NULL,
     is_available BOOLEAN DEFAULT TRUE,
     is_blocked BOOLEAN DEFAULT FALSE, -- Temporarily blocked during booking
+    blocked_until TIMESTAMP(3) NULL, -- Millisecond precision: holds are matched on their exact deadline
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (show_id) REFERENCES shows(id) ON DELETE CASCADE,
-    UNIQUE KEY unique_seat (show_id, seat_row, seat_number)
+    FOREIGN KEY (screen_seat_id) REFERENCES screen_seats(id),
+    UNIQUE KEY unique_seat (show_id, screen_seat_id)
 );
 
 -- Bookings table
@@ -197,6 +225,153 @@ CREATE TABLE sports (
     FOREIGN KEY (venue_id) REFERENCES venues(id)
 );
 
+-- Pricing rules (fees and taxes applied on top of seat prices)
+CREATE TABLE pricing_rules (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    rule_type VARCHAR(20) NOT NULL, -- FEE, TAX
+    code VARCHAR(50) NOT NULL, -- CONVENIENCE, GST
+    basis_points INT NOT NULL DEFAULT 0, -- 200 = 2%
+    minimum_paise BIGINT NOT NULL DEFAULT 0, -- Floor for FEE
+    is_active BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY unique_pricing_rule (rule_type, code)
+);
+
+-- Promo codes (campaigns with global and per-user caps)
+CREATE TABLE promo_codes (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    code VARCHAR(50) NOT NULL UNIQUE, -- SAVE10, FIRST50
+    basis_points INT NOT NULL DEFAULT 0, -- 1000 = 10% off
+    amount_paise BIGINT NOT NULL DEFAULT 0, -- Flat amount off
+    max_redemptions BIGINT NULL, -- Global cap, NULL = unlimited
+    max_per_user INT NULL, -- Per-user cap, NULL = unlimited
+    valid_from TIMESTAMP NULL,
+    valid_until TIMESTAMP NULL,
+    reserved_count BIGINT NOT NULL DEFAULT 0, -- Redemptions leased out to nodes
+    redeemed_count BIGINT NOT NULL DEFAULT 0, -- Redemptions flushed so far
+    is_active BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Promo redemptions (one row per booking that used a code)
+CREATE TABLE promo_redemptions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    promo_code_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    booking_reference VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (promo_code_id) REFERENCES promo_codes(id),
+    INDEX idx_promo_redemptions_code_user (promo_code_id, user_id)
+);
+
+-- Per-user promo usage; the guarded increment on this row enforces max_per_user across nodes
+CREATE TABLE promo_user_usage (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    promo_code_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    used_count INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (promo_code_id) REFERENCES promo_codes(id),
+    UNIQUE KEY uk_promo_user_usage (promo_code_id, user_id)
+);
+
+-- Show cancellations (resumable background jobs)
+CREATE TABLE show_cancellations (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    show_id BIGINT NOT NULL UNIQUE,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- PENDING, RUNNING, COMPLETED
+    reason VARCHAR(500),
+    requested_by BIGINT,
+    total_bookings BIGINT NOT NULL DEFAULT 0,
+    processed_bookings BIGINT NOT NULL DEFAULT 0,
+    refunds_queued BIGINT NOT NULL DEFAULT 0,
+    seats_released BIGINT NOT NULL DEFAULT 0,
+    last_booking_id BIGINT NOT NULL DEFAULT 0, -- Resume cursor
+    completed_at TIMESTAMP NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_show_cancellations_status (status)
+);
+
+-- Refunds owed for cancelled bookings, and for charges whose booking failed
+CREATE TABLE refunds (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    booking_id BIGINT UNIQUE, -- NULL when the charge never became a booking
+    user_id BIGINT NOT NULL,
+    amount DECIMAL(10, 2) NOT NULL,
+    transaction_id VARCHAR(100), -- Original payment
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- PENDING, COMPLETED, FAILED
+    reason VARCHAR(500),
+    show_cancellation_id BIGINT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (booking_id) REFERENCES bookings(id),
+    INDEX idx_refunds_status (status)
+);
+
+-- Last persisted dashboard statistics (one row per value, revenue in paise)
+CREATE TABLE statistics_snapshots (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    metric VARCHAR(30) NOT NULL, -- USERS, MOVIES, BOOKINGS, REVENUE, DAY_REVENUE, CITY_REVENUE
+    dimension VARCHAR(100) NOT NULL DEFAULT '', -- ISO date or city name
+    metric_value BIGINT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY unique_statistics_metric (metric, dimension)
+);
+
+-- Show waitlists (served in id order; an OFFERED entry holds seats until offer_expires_at)
+CREATE TABLE waitlist_entries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    show_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    seat_count INT NOT NULL,
+    seat_type VARCHAR(20), -- REGULAR, PREMIUM, VIP; NULL for any
+    status VARCHAR(20) NOT NULL DEFAULT 'WAITING', -- WAITING, OFFERED, FULFILLED, EXPIRED, CANCELLED
+    hold_id VARCHAR(50),
+    offer_expires_at TIMESTAMP NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (show_id) REFERENCES shows(id),
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    INDEX idx_waitlist_show_status (show_id, status),
+    INDEX idx_waitlist_user (user_id)
+);
+
+-- Seat hold tokens (seats are held by seats.blocked_until, which equals expires_at)
+CREATE TABLE seat_holds (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    hold_id VARCHAR(32) NOT NULL UNIQUE,
+    show_id BIGINT NOT NULL,
+    seat_ids VARCHAR(2000) NOT NULL, -- Comma-separated seat ids
+    owner_id BIGINT, -- NULL for anonymous holds
+    expires_at TIMESTAMP(3) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_seat_holds_expires_at (expires_at)
+);
+
+-- Requests made with an Idempotency-Key (PENDING while the first one runs, then its stored response)
+CREATE TABLE idempotency_keys (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    scope VARCHAR(200) NOT NULL UNIQUE, -- operation:userId:key
+    idempotency_key VARCHAR(100) NOT NULL,
+    user_id BIGINT NOT NULL,
+    operation VARCHAR(50) NOT NULL, -- booking.create, payment.book
+    request_hash VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- PENDING, COMPLETED
+    response_status INT,
+    response_body TEXT,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_idempotency_expires_at (expires_at)
+);
+
 -- Indexes for better performance
 CREATE INDEX idx_movies_genre ON movies(genre);
 CREATE INDEX idx_movies_language ON movies(language);
@@ -207,6 +382,8 @@ CREATE INDEX idx_shows_movie_venue ON shows(movie_id, venue_id);
 CREATE INDEX idx_seats_show_available ON seats(show_id, is_available);
 CREATE INDEX idx_bookings_user ON bookings(user_id);
 CREATE INDEX idx_bookings_status ON bookings(booking_status);
+CREATE INDEX idx_bookings_date_id ON bookings(booking_date, id);
+CREATE INDEX idx_bookings_status_date_id ON bookings(booking_status, booking_date, id);
 CREATE INDEX idx_venues_city ON venues(city_id);
 
 -- Insert initial data
@@ -270,21 +447,19 @@ INSERT INTO shows (movie_id, venue_id, show_date, show_time, screen_name, price,
 (3, 3, CURDATE(), '16:30:00', 'Screen 3', 350.00, 100, 100),
 (3, 3, CURDATE(), '21:00:00', 'Screen 3', 400.00, 100, 100);
 
--- Generate seats for shows (This is a sample - in practice you'd want a more efficient approach)
--- For show 1 (Avengers Endgame - Screen 1)
-INSERT INTO seats (show_id, seat_row, seat_number, seat_type, price, is_available) 
-SELECT 1, seat_row, seat_number, 
+-- Screen layout for Screen 1 of venue 1; shows on it need no seat rows until seats are held or sold
+INSERT INTO screen_seats (venue_id, screen_name, seat_row, seat_number, seat_type, price_tier) 
+SELECT 1, 'Screen 1', seat_row, seat_number, 
     CASE 
         WHEN seat_row IN ('A', 'B') THEN 'PREMIUM'
         WHEN seat_row IN ('H', 'I', 'J') THEN 'VIP'
         ELSE 'REGULAR'
     END as seat_type,
     CASE 
-        WHEN seat_row IN ('A', 'B') THEN 250.00
-        WHEN seat_row IN ('H', 'I', 'J') THEN 350.00
-        ELSE 200.00
-    END as price,
-    TRUE as is_available
+        WHEN seat_row IN ('A', 'B') THEN 50.00
+        WHEN seat_row IN ('H', 'I', 'J') THEN 150.00
+        ELSE 0.00
+    END as price_tier
 FROM (
     SELECT CHAR(65 + units.i + tens.i * 10) as seat_row, ones.i + 1 as seat_number
     FROM (SELECT 0 as i UNION SELECT 1 UNION SELECT 2 UNION SELECT 3 UNION SELECT 4 
@@ -118,11 +118,11 @@ class BookingService {
     return response.json();
   }
 
-  async unblockSeats(seatIds, showId) {
+  async unblockSeats(holdId) {
     const response = await fetch(`${API_BASE_URL}/seats/unblock`, {
       method: 'POST',
       headers: this.getAuthHeaders(),
-      body: JSON.stringify({ seatIds, showId })
+      body: JSON.stringify({ holdId })
     });
     if (!response.ok) {
       throw new Error(`Failed to unblock seats: ${response.statusText}`);